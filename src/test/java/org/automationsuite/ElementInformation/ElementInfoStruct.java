@@ -1,21 +1,125 @@
 package org.automationsuite.ElementInformation;
 
 import lombok.Getter;
+import org.openqa.selenium.By;
+
+import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Getter
 public class ElementInfoStruct {
 
-    private String attributeValue;
-    private ElementAttributeTypes attributeType;
+    // Locators built in code, e.g. an xpath with a row's text in it, are cached up to this many per attribute type
+    private static final int maxCachedLocators = 10_000;
+    private static final Map<ElementAttributeTypes, Map<String, ElementInfoStruct>> cachedLocators = new EnumMap<>(ElementAttributeTypes.class);
+    // XPath objects are not thread-safe
+    private static final ThreadLocal<XPath> xpathCompiler = ThreadLocal.withInitial(() -> XPathFactory.newInstance().newXPath());
+
+    static {
+        for (ElementAttributeTypes attributeType : ElementAttributeTypes.values()) {
+            cachedLocators.put(attributeType, new ConcurrentHashMap<>());
+        }
+    }
+
+    private final ElementAttributeTypes attributeType;
+    private final String attributeValue;
+    // Built once, so a lookup never rebuilds the locator
+    private final By by;
+    // The locator the presence waits in Timers take, the css selector for DataTestId
+    private final String waitLocator;
+    // True for fields that only work when typed into key by key, e.g. fields with an input mask
+    private final boolean requiresTyping;
 
     /**
-     * Sets element information in a struct for functionality in SharedFunctionalityPage.
+     * Element information for functionality in SharedFunctionalityPage. The locator is checked and compiled here, so
+     * an invalid one fails when the locators are loaded rather than in the middle of a scenario.
      * @param attributeType Which attribute is being referenced (class, xpath etc.)
      * @param attributeValue The locator value of the attribute being referenced.
+     * @throws IllegalArgumentException If the locator value is not valid for its attribute type.
      */
+    public ElementInfoStruct(ElementAttributeTypes attributeType, String attributeValue){
+        this(attributeType, attributeValue, false);
+    }
 
-    public void setElementInformation(ElementAttributeTypes attributeType, String attributeValue){
+    /**
+     * Element information for functionality in SharedFunctionalityPage.
+     * @param attributeType Which attribute is being referenced (class, xpath etc.)
+     * @param attributeValue The locator value of the attribute being referenced.
+     * @param requiresTyping True if the element is an input field that has to be typed into key by key rather than
+     *                       filled in with a script.
+     * @throws IllegalArgumentException If the locator value is not valid for its attribute type.
+     */
+    public ElementInfoStruct(ElementAttributeTypes attributeType, String attributeValue, boolean requiresTyping){
+        if (attributeType == null || attributeValue == null || attributeValue.isBlank()) {
+            throw new IllegalArgumentException("An element needs an attribute type and a value, got " + attributeType + " '" + attributeValue + "'");
+        }
         this.attributeType = attributeType;
         this.attributeValue = attributeValue;
+        this.requiresTyping = requiresTyping;
+        switch (attributeType) {
+            case Id -> {
+                requireNoWhitespace(attributeValue);
+                by = By.id(attributeValue);
+                waitLocator = attributeValue;
+            }
+            case xPath -> {
+                requireValidXpath(attributeValue);
+                by = By.xpath(attributeValue);
+                waitLocator = attributeValue;
+            }
+            case ClassName -> {
+                requireNoWhitespace(attributeValue);
+                by = By.className(attributeValue);
+                waitLocator = attributeValue;
+            }
+            case DataTestId -> {
+                if (attributeValue.contains("'") || attributeValue.contains("\\")) {
+                    throw new IllegalArgumentException("A data-testid cannot contain quotes or backslashes: " + attributeValue);
+                }
+                waitLocator = "[data-testid='" + attributeValue + "']";
+                by = By.cssSelector(waitLocator);
+            }
+            default -> throw new IllegalArgumentException("Unsupported attribute type: " + attributeType);
+        }
+    }
+
+    /**
+     * Returns the element information for a locator, compiling it only the first time it is used.
+     * @param attributeType Which attribute is being referenced (class, xpath etc.)
+     * @param attributeValue The locator value of the attribute being referenced.
+     * @return The element information.
+     * @throws IllegalArgumentException If the locator value is not valid for its attribute type.
+     */
+    public static ElementInfoStruct of(ElementAttributeTypes attributeType, String attributeValue){
+        if (attributeType == null || attributeValue == null) {
+            return new ElementInfoStruct(attributeType, attributeValue);
+        }
+        Map<String, ElementInfoStruct> cached = cachedLocators.get(attributeType);
+        ElementInfoStruct element = cached.get(attributeValue);
+        if (element == null) {
+            element = new ElementInfoStruct(attributeType, attributeValue);
+            if (cached.size() < maxCachedLocators) {
+                cached.put(attributeValue, element);
+            }
+        }
+        return element;
+    }
+
+    private void requireNoWhitespace(String value) {
+        if (value.chars().anyMatch(Character::isWhitespace)) {
+            throw new IllegalArgumentException("A " + attributeType + " cannot contain whitespace: " + value);
+        }
+    }
+
+    private static void requireValidXpath(String xpath) {
+        try {
+            xpathCompiler.get().compile(xpath);
+        } catch (XPathExpressionException e) {
+            throw new IllegalArgumentException("Invalid xpath: " + xpath, e);
+        }
     }
-}
\ No newline at end of file
+}
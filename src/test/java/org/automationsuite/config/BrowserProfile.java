@@ -0,0 +1,213 @@
+package org.automationsuite.config;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.PageLoadStrategy;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.chrome.ChromeOptions;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.remote.Augmenter;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Browser settings traded against page-load time. Selected for the run with BROWSER_PROFILE, or for a single scenario
+ * with a @browserProfile:NAME tag.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public enum BrowserProfile {
+
+    // The browser as it has always been configured, every asset loaded
+    STANDARD(PageLoadStrategy.NORMAL, false, false),
+    // Navigation returns once the DOM is ready, with images, fonts, analytics and ads never requested
+    FAST(PageLoadStrategy.EAGER, true, true),
+    // Navigation returns straight away, so every step has to wait for the elements it uses
+    FASTEST(PageLoadStrategy.NONE, true, true);
+
+    private static final String profileTagPrefix = "@browserProfile:";
+    // Hosts that only serve analytics and advertising, extended with BLOCKED_HOSTS
+    private static final List<String> defaultBlockedHosts = List.of("*.google-analytics.com", "*.googletagmanager.com",
+            "*.doubleclick.net", "*.googlesyndication.com", "*.facebook.net", "*.hotjar.com", "*.newrelic.com",
+            "*.nr-data.net", "*.segment.io", "*.optimizely.com");
+    private static final List<String> blockedFontPatterns = List.of("*.woff", "*.woff2", "*.ttf", "*.otf", "*.eot");
+    private static final String diskCacheDirectory = System.getProperty("BROWSER_CACHE_DIR", "target/browser-cache");
+
+    @Getter
+    private final PageLoadStrategy pageLoadStrategy;
+    @Getter
+    private final boolean blockAssets;
+    // Sets the window size as a launch argument, instead of resizing and maximising the window after start up
+    @Getter
+    private final boolean fixedViewport;
+
+    private final LongAdder pageLoads = new LongAdder();
+    private final LongAdder pageLoadNanos = new LongAdder();
+    // Disk cache directories no open browser is using. A new browser takes the lowest free one and gives it back once
+    // it has quit, so there are never more directories than browsers open at the same time
+    private final TreeSet<Integer> freeCacheDirectories = new TreeSet<>();
+    private int cacheDirectoryCount;
+    private final Map<WebDriver, Integer> cacheDirectoriesInUse = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the profile selected for the run.
+     * @return The profile named by BROWSER_PROFILE, STANDARD if it is not set.
+     */
+    public static BrowserProfile selected() {
+        return valueOf(System.getProperty("BROWSER_PROFILE", STANDARD.name()).toUpperCase());
+    }
+
+    /**
+     * Returns the profile a scenario asks for with a profile tag.
+     * @param tags The tags of the scenario.
+     * @return The tagged profile, or the profile selected for the run if the scenario has no profile tag.
+     */
+    public static BrowserProfile forTags(Iterable<String> tags) {
+        for (String tag : tags) {
+            if (tag.startsWith(profileTagPrefix)) {
+                return valueOf(tag.substring(profileTagPrefix.length()).toUpperCase());
+            }
+        }
+        return selected();
+    }
+
+    /**
+     * Takes a disk cache directory for a browser about to be created. Give it back with releaseCacheDirectory if the
+     * browser could not be created, once it is created it is given back when the browser has quit.
+     * @return The number of the directory, -1 if the profile keeps no disk cache.
+     */
+    synchronized int takeCacheDirectory() {
+        if (!blockAssets) {
+            return -1;
+        }
+        Integer free = freeCacheDirectories.pollFirst();
+        return free != null ? free : cacheDirectoryCount++;
+    }
+
+    /**
+     * Gives back a disk cache directory taken for a browser.
+     * @param cacheDirectory The number of the directory, -1 for none.
+     */
+    synchronized void releaseCacheDirectory(int cacheDirectory) {
+        if (cacheDirectory >= 0) {
+            freeCacheDirectories.add(cacheDirectory);
+        }
+    }
+
+    /**
+     * Gives back the disk cache directory of a browser that has quit.
+     * @param driver The driver of the browser.
+     */
+    void releaseCacheDirectory(WebDriver driver) {
+        Integer cacheDirectory = cacheDirectoriesInUse.remove(driver);
+        if (cacheDirectory != null) {
+            releaseCacheDirectory(cacheDirectory);
+        }
+    }
+
+    /**
+     * Adds the profile's settings to the options a driver is created with.
+     * @param options The options to change.
+     * @param cacheDirectory The disk cache directory taken for the browser, -1 for none.
+     */
+    public void applyTo(ChromeOptions options, int cacheDirectory) {
+        options.setPageLoadStrategy(pageLoadStrategy);
+        if (fixedViewport) {
+            options.addArguments("--window-size=1920,1080");
+        }
+        if (blockAssets) {
+            options.addArguments("--disable-extensions", "--disable-component-extensions-with-background-pages");
+            options.addArguments("--host-resolver-rules=" + blockedHosts().stream()
+                    .map(host -> "MAP " + host + " ~NOTFOUND")
+                    .collect(Collectors.joining(", ")));
+            options.setExperimentalOption("prefs", Map.of("profile.managed_default_content_settings.images", 2));
+        }
+        if (cacheDirectory >= 0) {
+            // Each open browser has its own directory as Chrome cannot share a disk cache, numbered so later browsers
+            // and the next run reuse it
+            options.addArguments("--disk-cache-dir=" + diskCacheDirectory + "/" + name().toLowerCase() + "-" + cacheDirectory);
+        }
+    }
+
+    /**
+     * Applies the settings that can only be made once the browser has started. Fonts can only be blocked through the
+     * DevTools protocol, so they are still loaded on a Grid that does not expose it.
+     * @param driver The newly created driver.
+     * @param cacheDirectory The disk cache directory the browser was created with, -1 for none.
+     */
+    public void applyTo(WebDriver driver, int cacheDirectory) {
+        if (cacheDirectory >= 0) {
+            cacheDirectoriesInUse.put(driver, cacheDirectory);
+        }
+        if (!hasWindowSettings()) {
+            return;
+        }
+        try {
+            WebDriver cdpDriver = driver instanceof HasCdp ? driver : new Augmenter().augment(driver);
+            if (cdpDriver instanceof HasCdp cdp) {
+                applyToCurrentWindow(cdp);
+            }
+        } catch (Exception e) {
+            log.warn("Fonts are not blocked, the browser does not support the DevTools protocol: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return True if the profile has DevTools settings, which only apply to the window they were made in, so every
+     * window the browser opens needs them again.
+     */
+    boolean hasWindowSettings() {
+        return blockAssets;
+    }
+
+    /**
+     * Applies the profile's DevTools settings to the window the browser is switched to.
+     * @param cdp The browser.
+     */
+    void applyToCurrentWindow(HasCdp cdp) {
+        if (hasWindowSettings()) {
+            cdp.executeCdpCommand("Network.enable", Map.of());
+            cdp.executeCdpCommand("Network.setBlockedURLs", Map.of("urls", blockedFontPatterns));
+        }
+    }
+
+    /**
+     * Records how long a navigation took with this profile, from the request until the driver, or the wait for the page
+     * to be ready when the caller waits for it, returned.
+     * @param pageLoadTime The measured time.
+     */
+    public void recordPageLoad(Duration pageLoadTime) {
+        pageLoads.increment();
+        pageLoadNanos.add(pageLoadTime.toNanos());
+    }
+
+    /**
+     * Logs the average page-load time of every profile that was used.
+     */
+    public static void logPageLoadTimes() {
+        for (BrowserProfile profile : values()) {
+            long loads = profile.pageLoads.sum();
+            if (loads > 0) {
+                log.info("Browser profile {}: {} page loads averaging {} ms", profile, loads,
+                        TimeUnit.NANOSECONDS.toMillis(profile.pageLoadNanos.sum() / loads));
+            }
+        }
+    }
+
+    private static List<String> blockedHosts() {
+        return Stream.concat(defaultBlockedHosts.stream(), Arrays.stream(System.getProperty("BLOCKED_HOSTS", "").split(","))
+                        .map(String::trim)
+                        .filter(host -> !host.isEmpty()))
+                .toList();
+    }
+}
@@ -0,0 +1,445 @@
+package org.automationsuite.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.Dimension;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Provides the browser sessions scenarios run on, so a scenario does not wait for the Grid to start a new one.
+ * <ul>
+ *     <li>Pooling (DRIVER_POOL=true): a pooled browser is lent to each scenario in a new browser context of its own,
+ *     which is disposed when the scenario hands it back, discarding the cookies, storage and cache of every origin the
+ *     scenario visited. The browser is then kept for the next scenario, until it has been used too many times or stops
+ *     responding. A browser without the DevTools protocol browser contexts need is never pooled.</li>
+ *     <li>Pre-warming (DRIVER_PREWARM=n): up to n new browsers are started in the background while scenarios run, so
+ *     the next scenario finds one ready. Started browsers never take the number of sessions above GRID_SLOTS.</li>
+ * </ul>
+ * With both off every driver is created on the scenario's thread and quit at its end, as before.
+ */
+@Slf4j
+public class DriverPool {
+
+    private static final boolean poolingEnabled = Boolean.parseBoolean(System.getProperty("DRIVER_POOL", "false"));
+    private static final int maxBrowserSessions = Integer.parseInt(System.getProperty("MAX_BROWSER_SESSIONS",
+            System.getProperty("THREADS", "2")));
+    // Idle sessions still hold a Grid slot, so never keep more than can run at once
+    private static final int maxIdleDrivers = Integer.parseInt(System.getProperty("DRIVER_POOL_SIZE", String.valueOf(maxBrowserSessions)));
+    // A long-lived browser slowly leaks memory, so it is quit after this many scenarios
+    private static final int maxUsesPerDriver = Integer.parseInt(System.getProperty("DRIVER_MAX_REUSE", "20"));
+    // How many browsers to keep started ahead of the scenarios that will use them, 0 to never start one early
+    private static final int prewarmTarget = Integer.parseInt(System.getProperty("DRIVER_PREWARM", "0"));
+    // Pre-warming never starts a browser once this many sessions are open
+    private static final int gridSlots = Integer.parseInt(System.getProperty("GRID_SLOTS", String.valueOf(maxBrowserSessions)));
+    // How many scenarios share one browser, each in its own isolated browser context, 1 to give every scenario its own
+    private static final int tabsPerBrowser = Integer.parseInt(System.getProperty("TABS_PER_BROWSER", "1"));
+    private static final Duration implicitWait = Duration.ofSeconds(5);
+
+    private static final BlockingDeque<WebDriver> idleDrivers = new LinkedBlockingDeque<>();
+    private static final BlockingDeque<WebDriver> prewarmedDrivers = new LinkedBlockingDeque<>();
+    private static final Map<WebDriver, Integer> driverUses = new ConcurrentHashMap<>();
+    private static final Map<WebDriver, BrowserProfile> driverProfiles = new ConcurrentHashMap<>();
+    // Pooled browsers lent to a scenario, by the driver of the scenario's browser context
+    private static final Map<WebDriver, SharedBrowser> leases = new ConcurrentHashMap<>();
+    // Sessions open or being opened, whether in use, idle or pre-warmed
+    private static final AtomicInteger openSessions = new AtomicInteger();
+    private static final AtomicInteger prewarming = new AtomicInteger();
+    // Browsers shared between scenarios, also the lock their tab counts are guarded by
+    private static final List<SharedBrowser> sharedBrowsers = new ArrayList<>();
+    private static volatile boolean sharingUnsupported;
+    private static final ExecutorService provisioner = Executors.newCachedThreadPool(
+            Thread.ofPlatform().name("driver-provisioner-", 1).daemon().factory());
+    private static volatile boolean shutDown;
+
+    private static final AtomicInteger created = new AtomicInteger();
+    private static final AtomicInteger reused = new AtomicInteger();
+    private static final AtomicInteger prewarmedUsed = new AtomicInteger();
+    private static final AtomicInteger evicted = new AtomicInteger();
+    private static final AtomicInteger acquired = new AtomicInteger();
+    private static final LongAdder waitNanos = new LongAdder();
+
+    private DriverPool(){}
+
+    /**
+     * Returns a healthy idle or pre-warmed driver, or creates a new one when there is none or a fresh browser is
+     * required. A pre-warmed browser is also a fresh browser, as no scenario has used it yet. Browsers are only
+     * pre-warmed with the profile selected for the run.
+     * @param freshBrowser True to never reuse a browser another scenario has used.
+     * @param profile The browser profile the driver has to be configured with.
+     * @return The driver, with its window and timeouts configured.
+     */
+    public static WebDriver acquire(boolean freshBrowser, BrowserProfile profile) {
+        long startTime = System.nanoTime();
+        try {
+            if (tabsPerBrowser > 1 && !freshBrowser && !sharingUnsupported) {
+                return acquireTab(profile);
+            }
+            if (poolingEnabled && !freshBrowser) {
+                WebDriver idleDriver = takeHealthy(idleDrivers, profile);
+                if (idleDriver != null) {
+                    reused.incrementAndGet();
+                    driverUses.merge(idleDriver, 1, Integer::sum);
+                    return lend(idleDriver, profile);
+                }
+                return lend(newOrPrewarmedDriver(profile), profile);
+            }
+            return newOrPrewarmedDriver(profile);
+        } finally {
+            acquired.incrementAndGet();
+            waitNanos.add(System.nanoTime() - startTime);
+            prewarm();
+        }
+    }
+
+    /**
+     * Hands a driver back at the end of a scenario. A pooled browser is reset and kept for the next scenario when the
+     * driver can be reused, otherwise it is quit.
+     * @param driver The driver the scenario used.
+     * @param reusable False if the driver must not be given to another scenario, e.g. the scenario failed or asked for
+     *                 a fresh browser.
+     */
+    public static void release(WebDriver driver, boolean reusable) {
+        // Only browsers lent in a browser context of their own are pooled, anything else could keep a scenario's data
+        SharedBrowser lentBrowser = leases.get(driver);
+        if (lentBrowser == null) {
+            quit(driver);
+            return;
+        }
+        if (!reusable || shutDown) {
+            // Quitting the browser discards the scenario's browser context with it, without waiting for a call the
+            // scenario may still be stuck in
+            leases.remove(driver);
+            quit(lentBrowser.getDriver());
+            return;
+        }
+        WebDriver browser = endLease(driver);
+        if (browser == null) {
+            // Released from another thread in the meantime, e.g. by the watchdog of a scenario over its time limit
+            return;
+        }
+        if (driverUses.getOrDefault(browser, maxUsesPerDriver) >= maxUsesPerDriver) {
+            evict(browser, "it reached its maximum of " + maxUsesPerDriver + " scenarios");
+            return;
+        }
+        if (!isHealthy(browser)) {
+            evict(browser, "it no longer responds");
+            return;
+        }
+        if (idleDrivers.size() >= maxIdleDrivers) {
+            quit(browser);
+            return;
+        }
+        idleDrivers.offerFirst(browser);
+    }
+
+    /**
+     * Lends a pooled browser to a scenario in a new browser context, which has its own cookies, storage and cache. A
+     * browser without the DevTools protocol is returned as it is, and quit rather than pooled when it is handed back.
+     * @param browser The pooled browser.
+     * @param profile The profile it was created with.
+     * @return The driver of the scenario's browser context.
+     */
+    static WebDriver lend(WebDriver browser, BrowserProfile profile) {
+        SharedBrowser lentBrowser = SharedBrowser.open(browser, profile, implicitWait);
+        if (lentBrowser == null) {
+            log.warn("The browser does not support browser contexts, it is quit rather than pooled after the scenario");
+            return browser;
+        }
+        WebDriver lease;
+        try {
+            lease = lentBrowser.openTab(_ -> {});
+        } catch (RuntimeException e) {
+            quit(browser);
+            throw e;
+        }
+        leases.put(lease, lentBrowser);
+        return lease;
+    }
+
+    /**
+     * Ends a scenario's lease of a pooled browser by disposing its browser context, which discards everything the
+     * scenario left behind for every origin it visited, and closes every window it opened.
+     * @param driver The driver the scenario used.
+     * @return The pooled browser, or null if the driver was not lent from the pool.
+     */
+    static WebDriver endLease(WebDriver driver) {
+        SharedBrowser lentBrowser = leases.remove(driver);
+        if (lentBrowser == null) {
+            return null;
+        }
+        driver.quit();
+        return lentBrowser.getDriver();
+    }
+
+    /**
+     * Returns how many browser sessions this run holds on the Grid, whether in use, idle, pre-warmed, starting or
+     * quitting.
+     * @return The number of sessions.
+     */
+    public static int openSessions() {
+        return openSessions.get();
+    }
+
+    /**
+     * Returns the implicit wait every driver is created with, for code that switches it off for a while to restore.
+     * @return The implicit wait.
+     */
+    public static Duration implicitWait() {
+        return implicitWait;
+    }
+
+    /**
+     * Returns whether a driver has its browser to itself, rather than being a scenario's tab in a shared browser whose
+     * calls take turns with the other scenarios in it.
+     * @param driver A driver handed out by the pool.
+     * @return False for a tab in a shared browser.
+     */
+    public static boolean ownsBrowser(WebDriver driver) {
+        return driverUses.containsKey(driver) || leases.containsKey(driver);
+    }
+
+    /**
+     * Returns how many scenarios run in one browser session.
+     * @return TABS_PER_BROWSER, or 1 when the browser turned out not to support browser contexts.
+     */
+    public static int scenariosPerSession() {
+        return sharingUnsupported ? 1 : tabsPerBrowser;
+    }
+
+    /**
+     * Stops pre-warming, quits every idle and pre-warmed driver and waits for every driver handed to the reaper to
+     * quit. Called once the run has finished, before the report is written.
+     */
+    public static void shutdown() {
+        shutDown = true;
+        provisioner.shutdown();
+        try {
+            // A browser still starting would otherwise be left open on the Grid
+            if (!provisioner.awaitTermination(2, TimeUnit.MINUTES)) {
+                log.warn("Gave up waiting for {} browsers still being pre-warmed", prewarming.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        WebDriver driver;
+        while ((driver = idleDrivers.pollFirst()) != null || (driver = prewarmedDrivers.pollFirst()) != null) {
+            quit(driver);
+        }
+        DriverReaper.drain(Duration.ofMinutes(2));
+        int scenarios = Math.max(1, acquired.get());
+        log.info("Driver pool: {} browsers created, {} reused, {} pre-warmed browsers used, {} evicted. " +
+                        "Scenarios waited {} ms in total for a driver, {} ms on average",
+                created.get(), reused.get(), prewarmedUsed.get(), evicted.get(),
+                TimeUnit.NANOSECONDS.toMillis(waitNanos.sum()), TimeUnit.NANOSECONDS.toMillis(waitNanos.sum() / scenarios));
+    }
+
+    /**
+     * Returns a driver no scenario has used yet, pre-warmed if one is ready.
+     */
+    private static WebDriver newOrPrewarmedDriver(BrowserProfile profile) {
+        WebDriver prewarmedDriver = profile == BrowserProfile.selected() ? takePrewarmed() : null;
+        if (prewarmedDriver != null) {
+            prewarmedUsed.incrementAndGet();
+            return prewarmedDriver;
+        }
+        openSessions.incrementAndGet();
+        return createDriver(profile);
+    }
+
+    /**
+     * Opens a browser context for the scenario in a shared browser that has room for another scenario, starting a new
+     * browser when none has. Falls back to a browser of its own when the browser does not support browser contexts.
+     * @param profile The browser profile the driver has to be configured with.
+     * @return The driver of the scenario's browser context.
+     */
+    private static WebDriver acquireTab(BrowserProfile profile) {
+        SharedBrowser browser = null;
+        synchronized (sharedBrowsers) {
+            for (SharedBrowser candidate : sharedBrowsers) {
+                if (candidate.getProfile() == profile && candidate.tabs < tabsPerBrowser) {
+                    candidate.tabs++;
+                    browser = candidate;
+                    break;
+                }
+            }
+        }
+        if (browser == null) {
+            WebDriver driver = newOrPrewarmedDriver(profile);
+            browser = SharedBrowser.open(driver, profile, implicitWait);
+            if (browser == null) {
+                sharingUnsupported = true;
+                log.warn("The browser does not support browser contexts, every scenario gets a browser of its own");
+                return driver;
+            }
+            synchronized (sharedBrowsers) {
+                browser.tabs = 1;
+                sharedBrowsers.add(browser);
+            }
+        }
+        try {
+            return browser.openTab(DriverPool::closeTab);
+        } catch (RuntimeException e) {
+            closeTab(browser);
+            throw e;
+        }
+    }
+
+    /**
+     * Called once a scenario's browser context has been disposed, quits the browser when it was the last one in it.
+     * @param browser The shared browser the context was in.
+     */
+    private static void closeTab(SharedBrowser browser) {
+        boolean lastTab;
+        synchronized (sharedBrowsers) {
+            lastTab = --browser.tabs == 0;
+            if (lastTab) {
+                sharedBrowsers.remove(browser);
+            }
+        }
+        if (lastTab) {
+            quit(browser.getDriver());
+        }
+    }
+
+    /**
+     * Takes a pre-warmed driver, waiting for one that is already starting rather than opening another session.
+     * @return The driver, or null if none is ready or starting.
+     */
+    private static WebDriver takePrewarmed() {
+        WebDriver driver = takeHealthy(prewarmedDrivers, BrowserProfile.selected());
+        while (driver == null && prewarming.get() > 0) {
+            try {
+                driver = prewarmedDrivers.pollFirst(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            if (driver != null && !isHealthy(driver)) {
+                evict(driver, "it no longer responds");
+                driver = null;
+            }
+        }
+        return driver;
+    }
+
+    /**
+     * Starts browsers in the background until enough are ready, or being started, for the next scenarios. Called at
+     * the start of the run and again whenever a driver is taken or quit.
+     */
+    public static void prewarm() {
+        while (!shutDown && idleDrivers.size() + prewarmedDrivers.size() + prewarming.get() < prewarmTarget) {
+            int sessions = openSessions.get();
+            if (sessions >= gridSlots) {
+                return;
+            }
+            if (!openSessions.compareAndSet(sessions, sessions + 1)) {
+                continue;
+            }
+            prewarming.incrementAndGet();
+            try {
+                provisioner.execute(() -> {
+                    try {
+                        prewarmedDrivers.offerLast(createDriver(BrowserProfile.selected()));
+                    } catch (Exception e) {
+                        log.error("Error pre-warming a browser", e);
+                    } finally {
+                        prewarming.decrementAndGet();
+                    }
+                });
+            } catch (Exception e) {
+                // The provisioner was shut down in the meantime
+                openSessions.decrementAndGet();
+                prewarming.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Creates and configures a driver. The caller has already counted its session in openSessions, which is given back
+     * if the driver cannot be created.
+     * @param profile The browser profile to configure the driver with.
+     * @return The driver.
+     */
+    private static WebDriver createDriver(BrowserProfile profile) {
+        WebDriver driver;
+        try {
+            driver = WebDriverDefinition.WEBKIT.createDriver(profile);
+        } catch (RuntimeException e) {
+            openSessions.decrementAndGet();
+            throw e;
+        }
+        created.incrementAndGet();
+        driverUses.put(driver, 1);
+        driverProfiles.put(driver, profile);
+        try {
+            if (!profile.isFixedViewport()) {
+                driver.manage().window().setSize(new Dimension(1920, 1080));
+                driver.manage().window().maximize();
+            }
+            driver.manage().timeouts().implicitlyWait(implicitWait);
+        } catch (RuntimeException e) {
+            quit(driver);
+            throw e;
+        }
+        return driver;
+    }
+
+    private static WebDriver takeHealthy(BlockingDeque<WebDriver> drivers, BrowserProfile profile) {
+        for (WebDriver driver : drivers) {
+            if (driverProfiles.get(driver) != profile || !drivers.remove(driver)) {
+                continue;
+            }
+            if (isHealthy(driver)) {
+                return driver;
+            }
+            evict(driver, "it no longer responds");
+        }
+        return null;
+    }
+
+    private static boolean isHealthy(WebDriver driver) {
+        try {
+            return !driver.getWindowHandles().isEmpty();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private static void evict(WebDriver driver, String reason) {
+        evicted.incrementAndGet();
+        log.info("Evicting a driver because {}", reason);
+        quit(driver);
+    }
+
+    /**
+     * Hands the driver to the reaper, so the caller does not wait for the Grid to close the session. Its session stops
+     * counting towards GRID_SLOTS once it has quit.
+     * @param driver The driver to quit.
+     */
+    private static void quit(WebDriver driver) {
+        boolean counted = driverUses.remove(driver) != null;
+        BrowserProfile profile = driverProfiles.remove(driver);
+        DriverReaper.reap(driver, () -> {
+            if (counted) {
+                openSessions.decrementAndGet();
+            }
+            if (profile != null) {
+                profile.releaseCacheDirectory(driver);
+            }
+            prewarm();
+        });
+    }
+}
@@ -0,0 +1,51 @@
+package org.automationsuite.config;
+
+import org.junit.Test;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that a pooled browser keeps nothing of one scenario for the next, against a fake driver that speaks just
+ * enough of the DevTools protocol.
+ */
+public class DriverPoolTest {
+
+    @Test
+    public void localStorageWrittenBeforeTheResetIsGoneAfterIt() {
+        FakeCdpDriver browser = new FakeCdpDriver();
+        WebDriver firstScenario = DriverPool.lend(browser, BrowserProfile.STANDARD);
+        ((JavascriptExecutor) firstScenario).executeScript(FakeCdpDriver.setLocalStorageItem, "user", "first scenario");
+        assertEquals("first scenario", ((JavascriptExecutor) firstScenario).executeScript(FakeCdpDriver.getLocalStorageItem, "user"));
+
+        assertSame(browser, DriverPool.endLease(firstScenario));
+        WebDriver secondScenario = DriverPool.lend(browser, BrowserProfile.STANDARD);
+
+        assertNull(((JavascriptExecutor) secondScenario).executeScript(FakeCdpDriver.getLocalStorageItem, "user"));
+        DriverPool.endLease(secondScenario);
+    }
+
+    @Test
+    public void everyLeaseRunsInABrowserContextThatIsDisposedWhenItEnds() {
+        FakeCdpDriver browser = new FakeCdpDriver();
+        WebDriver firstScenario = DriverPool.lend(browser, BrowserProfile.STANDARD);
+        String firstContext = browser.contextOf(firstScenario.getWindowHandle());
+        DriverPool.endLease(firstScenario);
+        WebDriver secondScenario = DriverPool.lend(browser, BrowserProfile.STANDARD);
+
+        assertNotEquals(firstContext, browser.contextOf(secondScenario.getWindowHandle()));
+        assertTrue(browser.disposedContexts.contains(firstContext));
+        assertTrue(DriverPool.ownsBrowser(secondScenario));
+        DriverPool.endLease(secondScenario);
+    }
+
+    @Test
+    public void aDriverThatWasNotLentIsNotAPooledBrowser() {
+        assertNull(DriverPool.endLease(new FakeCdpDriver()));
+    }
+}
@@ -0,0 +1,103 @@
+package org.automationsuite.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Quits finished browser sessions in the background, so a worker can start its next scenario straight away instead of
+ * waiting for the Grid to close the session. Each quit is given a time limit and retried; a session that still has
+ * not quit after the last attempt is counted as leaked. The reaper is drained before the report is written and again
+ * when the JVM exits, so no session is left open on the Grid by an early exit.
+ */
+@Slf4j
+public class DriverReaper {
+
+    private static final Duration quitTimeout = Duration.ofSeconds(Long.parseLong(System.getProperty("DRIVER_QUIT_TIMEOUT", "30")));
+    private static final int quitAttempts = Integer.parseInt(System.getProperty("DRIVER_QUIT_ATTEMPTS", "3"));
+
+    private static final ExecutorService reaper = Executors.newCachedThreadPool(
+            Thread.ofPlatform().name("driver-reaper-", 1).daemon().factory());
+    private static final Set<CompletableFuture<Void>> pendingQuits = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger quit = new AtomicInteger();
+    private static final AtomicInteger leaked = new AtomicInteger();
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (!pendingQuits.isEmpty()) {
+                drain(quitTimeout.multipliedBy(quitAttempts));
+            }
+        }, "driver-reaper-shutdown"));
+    }
+
+    private DriverReaper(){}
+
+    /**
+     * Hands a driver over to be quit in the background.
+     * @param driver The driver to quit.
+     * @param onFinished Run once the driver has quit or been given up on, e.g. to give its Grid slot back.
+     */
+    public static void reap(WebDriver driver, Runnable onFinished) {
+        CompletableFuture<Void> pendingQuit = new CompletableFuture<>();
+        pendingQuits.add(pendingQuit);
+        reaper.execute(() -> {
+            try {
+                quitWithRetries(driver);
+            } finally {
+                onFinished.run();
+                pendingQuits.remove(pendingQuit);
+                pendingQuit.complete(null);
+            }
+        });
+    }
+
+    /**
+     * Waits for every driver handed to the reaper to quit.
+     * @param timeout The maximum time to wait.
+     */
+    public static void drain(Duration timeout) {
+        if (!pendingQuits.isEmpty()) {
+            log.info("Waiting for {} browser sessions to quit", pendingQuits.size());
+            try {
+                CompletableFuture.allOf(pendingQuits.toArray(CompletableFuture[]::new)).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                log.error("{} browser sessions did not quit within {}s", pendingQuits.size(), timeout.toSeconds());
+            } catch (Exception e) {
+                log.error("Error waiting for browser sessions to quit", e);
+            }
+        }
+        if (leaked.get() > 0) {
+            log.error("{} of {} browser sessions could not be quit and may still be open on the Grid", leaked.get(), quit.get() + leaked.get());
+        }
+    }
+
+    private static void quitWithRetries(WebDriver driver) {
+        for (int attempt = 1; attempt <= quitAttempts; attempt++) {
+            Future<?> quitCall = reaper.submit(driver::quit);
+            try {
+                quitCall.get(quitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+                quit.incrementAndGet();
+                return;
+            } catch (TimeoutException e) {
+                quitCall.cancel(true);
+                log.warn("Attempt {} of {} to quit a browser session timed out after {}s", attempt, quitAttempts, quitTimeout.toSeconds());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("Attempt {} of {} to quit a browser session failed: {}", attempt, quitAttempts, e.getMessage());
+            }
+        }
+        leaked.incrementAndGet();
+    }
+}
@@ -0,0 +1,170 @@
+package org.automationsuite.config;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A browser with windows in browser contexts, speaking just enough of the DevTools protocol to create and dispose of
+ * contexts. The title of the page is the handle of the window the browser is switched to, and each browser context has
+ * a local storage of its own, read and written with the two scripts the tests use. The windows URLs were blocked in
+ * are recorded.
+ */
+final class FakeCdpDriver implements WebDriver, HasCdp, JavascriptExecutor {
+
+    static final String setLocalStorageItem = "localStorage.setItem(arguments[0], arguments[1])";
+    static final String getLocalStorageItem = "return localStorage.getItem(arguments[0])";
+    // The browser context every browser starts with, which cannot be disposed
+    private static final String defaultContext = "default";
+
+    private final Map<String, String> windowContexts = new LinkedHashMap<>();
+    private final Map<String, Map<String, String>> localStorages = new HashMap<>();
+    final List<String> disposedContexts = new ArrayList<>();
+    final Set<String> windowsBlockingUrls = new LinkedHashSet<>();
+    private String activeHandle;
+    private int nextId;
+
+    FakeCdpDriver() {
+        activeHandle = openWindowFromThePage(defaultContext);
+    }
+
+    String contextOf(String handle) {
+        return windowContexts.get(handle);
+    }
+
+    String openWindowFromThePage(String contextId) {
+        String handle = "window-" + nextId++;
+        windowContexts.put(handle, contextId);
+        return handle;
+    }
+
+    @Override
+    public Map<String, Object> executeCdpCommand(String commandName, Map<String, Object> parameters) {
+        return switch (commandName) {
+            case "Target.createBrowserContext" -> Map.of("browserContextId", "context-" + nextId++);
+            case "Target.createTarget" -> Map.of("targetId", openWindowFromThePage((String) parameters.get("browserContextId")));
+            case "Target.disposeBrowserContext" -> {
+                String contextId = (String) parameters.get("browserContextId");
+                disposedContexts.add(contextId);
+                windowContexts.values().removeIf(contextId::equals);
+                localStorages.remove(contextId);
+                yield Map.of();
+            }
+            case "Target.getTargets" -> Map.of("targetInfos", windowContexts.entrySet().stream()
+                    .map(window -> Map.of("targetId", window.getKey(), "type", "page", "browserContextId", window.getValue()))
+                    .toList());
+            case "Network.enable" -> Map.of();
+            case "Network.setBlockedURLs" -> {
+                windowsBlockingUrls.add(activeHandle);
+                yield Map.of();
+            }
+            default -> throw new UnsupportedOperationException(commandName);
+        };
+    }
+
+    @Override
+    public Object executeScript(String script, Object... args) {
+        Map<String, String> localStorage = localStorages.computeIfAbsent(windowContexts.get(activeHandle), _ -> new HashMap<>());
+        return switch (script) {
+            case setLocalStorageItem -> {
+                localStorage.put((String) args[0], (String) args[1]);
+                yield null;
+            }
+            case getLocalStorageItem -> localStorage.get((String) args[0]);
+            default -> throw new UnsupportedOperationException(script);
+        };
+    }
+
+    @Override
+    public Object executeAsyncScript(String script, Object... args) {
+        throw new UnsupportedOperationException(script);
+    }
+
+    @Override
+    public String getTitle() {
+        return activeHandle;
+    }
+
+    @Override
+    public String getWindowHandle() {
+        return activeHandle;
+    }
+
+    @Override
+    public Set<String> getWindowHandles() {
+        return new LinkedHashSet<>(windowContexts.keySet());
+    }
+
+    @Override
+    public TargetLocator switchTo() {
+        return (TargetLocator) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{TargetLocator.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("window")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    if (!windowContexts.containsKey((String) args[0])) {
+                        throw new NoSuchWindowException("No window " + args[0]);
+                    }
+                    activeHandle = (String) args[0];
+                    return this;
+                });
+    }
+
+    @Override
+    public Options manage() {
+        // Only timeouts are set, on a chain of options that accept anything
+        return (Options) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Options.class, Timeouts.class},
+                (proxy, method, args) -> proxy);
+    }
+
+    @Override
+    public void close() {
+        windowContexts.remove(activeHandle);
+        activeHandle = null;
+    }
+
+    @Override
+    public void get(String url) {
+    }
+
+    @Override
+    public String getCurrentUrl() {
+        return "about:blank";
+    }
+
+    @Override
+    public List<WebElement> findElements(By by) {
+        return List.of();
+    }
+
+    @Override
+    public WebElement findElement(By by) {
+        throw new org.openqa.selenium.NoSuchElementException(by.toString());
+    }
+
+    @Override
+    public String getPageSource() {
+        return "";
+    }
+
+    @Override
+    public void quit() {
+    }
+
+    @Override
+    public Navigation navigate() {
+        throw new UnsupportedOperationException("navigate");
+    }
+}
@@ -0,0 +1,105 @@
+package org.automationsuite.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Reads the capacity of the Selenium Grid from its /status endpoint.
+ */
+@Slf4j
+public class GridStatus {
+
+    private static final ObjectMapper mapper = new ObjectMapper();
+    private static final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    private GridStatus(){}
+
+    /**
+     * The capacity of the Grid at one point in time.
+     * @param ready True if the Grid reports it is ready to accept sessions.
+     * @param totalSlots The number of session slots on nodes that are up.
+     * @param freeSlots The number of those slots without a session.
+     */
+    public record GridCapacity(boolean ready, int totalSlots, int freeSlots) {}
+
+    /**
+     * Returns the address of the Grid, taken from GRID_URL.
+     * @return The Grid address, without the /wd/hub path.
+     */
+    public static URI gridUrl() {
+        return URI.create(System.getProperty("GRID_URL", "http://localhost:4444"));
+    }
+
+    /**
+     * Fetches the current capacity of the Grid.
+     * @param gridUrl The address of the Grid.
+     * @return The capacity, or empty if the Grid could not be reached or its answer not understood.
+     */
+    public static Optional<GridCapacity> fetch(URI gridUrl) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(gridUrl.resolve("/status")).timeout(Duration.ofSeconds(5)).GET().build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                log.debug("Grid status returned HTTP {}", response.statusCode());
+                return Optional.empty();
+            }
+            JsonNode status = mapper.readTree(response.body()).path("value");
+            int totalSlots = 0;
+            int freeSlots = 0;
+            for (JsonNode node : status.path("nodes")) {
+                if (!"UP".equals(node.path("availability").asText())) {
+                    continue;
+                }
+                for (JsonNode slot : node.path("slots")) {
+                    totalSlots++;
+                    if (slot.path("session").isNull() || slot.path("session").isMissingNode()) {
+                        freeSlots++;
+                    }
+                }
+            }
+            return Optional.of(new GridCapacity(status.path("ready").asBoolean(false), totalSlots, freeSlots));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (Exception e) {
+            log.debug("Error reading the Grid status: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Polls the Grid until it is ready and has at least one slot on a node that is up.
+     * @param gridUrl The address of the Grid.
+     * @param timeout The maximum time to wait.
+     * @return The capacity of the Grid once it is ready.
+     * @throws IllegalStateException If the Grid is not ready within the timeout.
+     */
+    public static GridCapacity awaitReady(URI gridUrl, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        log.info("Waiting up to {}s for the Grid at {} to be ready", timeout.toSeconds(), gridUrl);
+        while (true) {
+            Optional<GridCapacity> capacity = fetch(gridUrl);
+            if (capacity.isPresent() && capacity.get().ready() && capacity.get().totalSlots() > 0) {
+                log.info("Grid ready with {} slots, {} free", capacity.get().totalSlots(), capacity.get().freeSlots());
+                return capacity.get();
+            }
+            if (System.nanoTime() >= deadline) {
+                throw new IllegalStateException("Selenium Grid at " + gridUrl + " was not ready within " + timeout.toSeconds() + "s");
+            }
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for the Selenium Grid", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package org.automationsuite.config;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.WrapsDriver;
+import org.openqa.selenium.WrapsElement;
+import org.openqa.selenium.chromium.HasCdp;
+import org.openqa.selenium.remote.Augmenter;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * One browser process shared by several scenarios at the same time, or lent to one scenario after another by the
+ * driver pool. Every scenario gets its own window in a separate browser context, which has its own cookies, storage and
+ * cache, and is handed a driver that switches to that window before every call. Calls from different scenarios take turns on the browser, so a long call (e.g. a page load with
+ * the NORMAL page-load strategy) holds up the other scenarios in the same browser.
+ * The profile's DevTools settings, e.g. blocked fonts, only apply to the window they are made in, so they are made
+ * again in every window a scenario opens or the page opens for it.
+ * The browser's own implicit wait is zero, so a scenario waiting for an element never holds the browser; each driver
+ * emulates the implicit wait itself.
+ */
+@Slf4j
+class SharedBrowser {
+
+    private static final long findRetryMillis = 100;
+
+    @Getter
+    private final WebDriver driver;
+    @Getter
+    private final BrowserProfile profile;
+    private final HasCdp cdp;
+    private final Duration implicitWait;
+    // Every call on the browser holds this lock, so the window a call runs in cannot change underneath it
+    private final Object browserLock = new Object();
+    // The window the browser is switched to, guarded by browserLock
+    private String activeHandle;
+    // Scenarios using or about to use the browser, guarded by DriverPool's lock on its shared browser list
+    int tabs;
+
+    private SharedBrowser(WebDriver driver, BrowserProfile profile, HasCdp cdp, Duration implicitWait) {
+        this.driver = driver;
+        this.profile = profile;
+        this.cdp = cdp;
+        this.implicitWait = implicitWait;
+    }
+
+    /**
+     * Prepares a newly created driver to be shared.
+     * @param driver The driver.
+     * @param profile The profile it was created with.
+     * @param implicitWait The implicit wait every scenario's driver emulates.
+     * @return The shared browser, or null if the browser does not support the DevTools protocol browser contexts need.
+     */
+    static SharedBrowser open(WebDriver driver, BrowserProfile profile, Duration implicitWait) {
+        try {
+            WebDriver cdpDriver = driver instanceof HasCdp ? driver : new Augmenter().augment(driver);
+            if (!(cdpDriver instanceof HasCdp cdp)) {
+                return null;
+            }
+            driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+            return new SharedBrowser(driver, profile, cdp, implicitWait);
+        } catch (Exception e) {
+            log.warn("Browser cannot be shared, it does not support the DevTools protocol: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Opens a window in a new browser context for a scenario.
+     * @param onClosed Called once the scenario's driver has been quit and its browser context disposed.
+     * @return The driver the scenario uses, quitting it only disposes the scenario's browser context.
+     */
+    WebDriver openTab(Consumer<SharedBrowser> onClosed) {
+        synchronized (browserLock) {
+            String contextId = (String) cdp.executeCdpCommand("Target.createBrowserContext", Map.of()).get("browserContextId");
+            Tab tab = new Tab(contextId, onClosed);
+            tab.currentHandle = createWindow(contextId, false);
+            tab.handles.add(tab.currentHandle);
+            return tab.driverProxy;
+        }
+    }
+
+    /**
+     * Creates a window in a browser context. Called holding browserLock.
+     * @return The window handle of the new window.
+     */
+    private String createWindow(String contextId, boolean newWindow) {
+        Set<String> existingHandles = driver.getWindowHandles();
+        cdp.executeCdpCommand("Target.createTarget", Map.of("url", "about:blank", "browserContextId", contextId, "newWindow", newWindow));
+        String handle = driver.getWindowHandles().stream()
+                .filter(windowHandle -> !existingHandles.contains(windowHandle))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("The browser did not open a window for the new browser context"));
+        applyProfileTo(handle);
+        return handle;
+    }
+
+    /**
+     * Applies the profile's DevTools settings to a window the browser has not used before. Called holding browserLock.
+     */
+    private void applyProfileTo(String handle) {
+        if (!profile.hasWindowSettings()) {
+            return;
+        }
+        driver.switchTo().window(handle);
+        activeHandle = handle;
+        profile.applyToCurrentWindow(cdp);
+    }
+
+    /**
+     * A scenario's share of the browser: its browser context and the windows it has open in it.
+     */
+    private final class Tab {
+
+        private final String contextId;
+        private final Consumer<SharedBrowser> onClosed;
+        private final Set<String> handles = new LinkedHashSet<>();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private final WebDriver driverProxy;
+        private volatile String currentHandle;
+        private volatile Duration tabImplicitWait = implicitWait;
+
+        private Tab(String contextId, Consumer<SharedBrowser> onClosed) {
+            this.contextId = contextId;
+            this.onClosed = onClosed;
+            this.driverProxy = (WebDriver) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    interfacesOf(driver.getClass()), this::invokeOnDriver);
+        }
+
+        private Object invokeOnDriver(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "toString" -> "Tab " + currentHandle + " of " + driver;
+                case "quit" -> {
+                    quit();
+                    yield null;
+                }
+                case "close" -> {
+                    closeWindow();
+                    yield null;
+                }
+                case "getWindowHandles" -> onTab(() -> {
+                    addWindowsOpenedByThePage();
+                    return new LinkedHashSet<>(handles);
+                });
+                case "getWindowHandle" -> currentHandle;
+                case "findElement", "findElements" -> findWithImplicitWait(() -> invoke(driver, method, args), method.getName().equals("findElements"));
+                default -> onTab(() -> wrap(invoke(driver, method, args), method.getReturnType()));
+            };
+        }
+
+        /**
+         * Runs a call in this scenario's window, switching the browser to it first if another scenario used it last.
+         */
+        private Object onTab(BrowserCall call) throws Throwable {
+            if (closed.get()) {
+                throw new IllegalStateException("The browser context of this scenario has already been closed");
+            }
+            synchronized (browserLock) {
+                if (!currentHandle.equals(activeHandle)) {
+                    driver.switchTo().window(currentHandle);
+                    activeHandle = currentHandle;
+                }
+                return call.call();
+            }
+        }
+
+        /**
+         * Retries a find until the emulated implicit wait runs out, without holding the browser between attempts.
+         */
+        private Object findWithImplicitWait(BrowserCall find, boolean findsList) throws Throwable {
+            long deadline = System.nanoTime() + tabImplicitWait.toNanos();
+            while (true) {
+                try {
+                    Object found = onTab(find);
+                    if (!findsList || !((List<?>) found).isEmpty() || System.nanoTime() >= deadline) {
+                        return wrap(found, findsList ? List.class : WebElement.class);
+                    }
+                } catch (NoSuchElementException e) {
+                    if (System.nanoTime() >= deadline) {
+                        throw e;
+                    }
+                }
+                Thread.sleep(findRetryMillis);
+            }
+        }
+
+        /**
+         * Wraps whatever a call returns that would otherwise act on the browser without switching to this scenario's
+         * window first: elements, and Selenium's option, navigation and window switching interfaces.
+         */
+        private Object wrap(Object result, Class<?> returnType) {
+            if (result instanceof WebElement element && !(element instanceof WrapsElement)) {
+                return Proxy.newProxyInstance(getClass().getClassLoader(), withWrapsElement(interfacesOf(element.getClass())),
+                        (proxy, method, args) -> invokeOnElement(proxy, element, method, args));
+            }
+            if (result instanceof List<?> list) {
+                return list.stream().map(item -> wrap(item, Object.class)).toList();
+            }
+            if (result instanceof WebDriver) {
+                return driverProxy;
+            }
+            if (result != null && returnType.isInterface() && returnType.getPackageName().startsWith("org.openqa.selenium")) {
+                return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{returnType},
+                        (proxy, method, args) -> invokeOnSeleniumInterface(proxy, result, method, args));
+            }
+            return result;
+        }
+
+        private Object invokeOnElement(Object proxy, WebElement element, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "getWrappedElement" -> element;
+                case "getWrappedDriver" -> driverProxy;
+                case "equals" -> args[0] instanceof WrapsElement other ? element.equals(other.getWrappedElement()) : element.equals(args[0]);
+                case "hashCode" -> element.hashCode();
+                case "toString" -> element.toString();
+                case "findElement", "findElements" -> findWithImplicitWait(() -> invoke(element, method, args), method.getName().equals("findElements"));
+                default -> onTab(() -> wrap(invoke(element, method, args), method.getReturnType()));
+            };
+        }
+
+        private Object invokeOnSeleniumInterface(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "implicitlyWait" -> {
+                    // The browser's own implicit wait stays zero, so a scenario waiting for an element never holds the browser
+                    if (args.length == 1 && args[0] instanceof Duration duration) {
+                        tabImplicitWait = duration;
+                        return proxy;
+                    }
+                    return onTab(() -> wrap(invoke(target, method, args), method.getReturnType()));
+                }
+                case "newWindow" -> {
+                    return onTab(() -> {
+                        String handle = createWindow(contextId, args[0] == WindowType.WINDOW);
+                        handles.add(handle);
+                        currentHandle = handle;
+                        return driverProxy;
+                    });
+                }
+                case "window" -> {
+                    return onTab(() -> {
+                        // Only this scenario's own windows, another scenario's browser context must stay out of reach
+                        addWindowsOpenedByThePage();
+                        if (!handles.contains((String) args[0])) {
+                            throw new NoSuchWindowException("No window " + args[0] + " in this scenario's browser context");
+                        }
+                        invoke(target, method, args);
+                        currentHandle = driver.getWindowHandle();
+                        activeHandle = currentHandle;
+                        return driverProxy;
+                    });
+                }
+                default -> {
+                    return onTab(() -> wrap(invoke(target, method, args), method.getReturnType()));
+                }
+            }
+        }
+
+        /**
+         * Adds the windows the page opened itself in this scenario's browser context, e.g. with a link to a new tab. A
+         * window handle is the id of its DevTools target. Called holding browserLock.
+         */
+        private void addWindowsOpenedByThePage() {
+            Set<String> browserHandles = driver.getWindowHandles();
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> targets = (List<Map<String, Object>>) cdp.executeCdpCommand("Target.getTargets", Map.of()).get("targetInfos");
+            for (Map<String, Object> target : targets) {
+                if ("page".equals(target.get("type")) && contextId.equals(target.get("browserContextId"))
+                        && browserHandles.contains((String) target.get("targetId"))
+                        && handles.add((String) target.get("targetId"))) {
+                    applyProfileTo((String) target.get("targetId"));
+                }
+            }
+        }
+
+        private void closeWindow() throws Throwable {
+            onTab(() -> {
+                driver.close();
+                activeHandle = null;
+                handles.remove(currentHandle);
+                return null;
+            });
+            if (handles.isEmpty()) {
+                quit();
+            } else {
+                currentHandle = handles.iterator().next();
+            }
+        }
+
+        private void quit() {
+            if (!closed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                synchronized (browserLock) {
+                    // Closes every window in the context and discards its cookies, storage and cache
+                    cdp.executeCdpCommand("Target.disposeBrowserContext", Map.of("browserContextId", contextId));
+                    if (handles.contains(activeHandle)) {
+                        activeHandle = null;
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("Error disposing the browser context of a scenario: {}", e.getMessage());
+            } finally {
+                onClosed.accept(SharedBrowser.this);
+            }
+        }
+    }
+
+    /**
+     * A call on the browser, which may throw whatever the Selenium method it makes throws.
+     */
+    @FunctionalInterface
+    private interface BrowserCall {
+        Object call() throws Throwable;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Class<?>[] interfacesOf(Class<?> type) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            for (Class<?> implemented : current.getInterfaces()) {
+                // The wrapped driver is only ever reached through the scenario's own window
+                if (implemented != WrapsDriver.class) {
+                    interfaces.add(implemented);
+                }
+            }
+        }
+        return interfaces.toArray(Class<?>[]::new);
+    }
+
+    private static Class<?>[] withWrapsElement(Class<?>[] interfaces) {
+        Set<Class<?>> withWrapsElement = new LinkedHashSet<>(List.of(interfaces));
+        withWrapsElement.add(WrapsElement.class);
+        withWrapsElement.add(WrapsDriver.class);
+        return withWrapsElement.toArray(Class<?>[]::new);
+    }
+}
@@ -0,0 +1,107 @@
+package org.automationsuite.config;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openqa.selenium.NoSuchWindowException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WindowType;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that scenarios sharing a browser each stay in their own browser context, against a fake driver that speaks
+ * just enough of the DevTools protocol.
+ */
+public class SharedBrowserTest {
+
+    private FakeCdpDriver browser;
+    private SharedBrowser sharedBrowser;
+    private final List<SharedBrowser> closed = new ArrayList<>();
+
+    @Before
+    public void openBrowser() {
+        browser = new FakeCdpDriver();
+        sharedBrowser = SharedBrowser.open(browser, BrowserProfile.STANDARD, Duration.ZERO);
+    }
+
+    @Test
+    public void everyCallRunsInTheScenariosOwnWindow() {
+        WebDriver first = sharedBrowser.openTab(closed::add);
+        WebDriver second = sharedBrowser.openTab(closed::add);
+
+        assertEquals(first.getWindowHandle(), first.getTitle());
+        assertEquals(second.getWindowHandle(), second.getTitle());
+        assertEquals(first.getWindowHandle(), first.getTitle());
+    }
+
+    @Test
+    public void switchingToAnotherScenariosWindowIsRejected() {
+        WebDriver first = sharedBrowser.openTab(closed::add);
+        WebDriver second = sharedBrowser.openTab(closed::add);
+
+        assertThrows(NoSuchWindowException.class, () -> first.switchTo().window(second.getWindowHandle()));
+        assertFalse(first.getWindowHandles().contains(second.getWindowHandle()));
+        assertEquals(first.getWindowHandle(), first.getTitle());
+    }
+
+    @Test
+    public void windowsThePageOpensInTheScenariosContextCanBeSwitchedTo() {
+        WebDriver first = sharedBrowser.openTab(closed::add);
+        WebDriver second = sharedBrowser.openTab(closed::add);
+        String popup = browser.openWindowFromThePage(browser.contextOf(first.getWindowHandle()));
+
+        assertTrue(first.getWindowHandles().contains(popup));
+        assertFalse(second.getWindowHandles().contains(popup));
+        first.switchTo().window(popup);
+        assertEquals(popup, first.getTitle());
+        assertThrows(NoSuchWindowException.class, () -> second.switchTo().window(popup));
+    }
+
+    @Test
+    public void newWindowsOpenInTheScenariosContext() {
+        WebDriver first = sharedBrowser.openTab(closed::add);
+        String firstWindow = first.getWindowHandle();
+
+        first.switchTo().newWindow(WindowType.TAB);
+
+        assertEquals(browser.contextOf(firstWindow), browser.contextOf(first.getWindowHandle()));
+        assertEquals(Set.of(firstWindow, first.getWindowHandle()), first.getWindowHandles());
+    }
+
+    @Test
+    public void quittingDisposesOnlyTheScenariosContext() {
+        WebDriver first = sharedBrowser.openTab(closed::add);
+        WebDriver second = sharedBrowser.openTab(closed::add);
+        String firstContext = browser.contextOf(first.getWindowHandle());
+
+        first.quit();
+
+        assertEquals(List.of(firstContext), browser.disposedContexts);
+        assertEquals(List.of(sharedBrowser), closed);
+        assertThrows(IllegalStateException.class, first::getTitle);
+        assertEquals(second.getWindowHandle(), second.getTitle());
+    }
+
+    @Test
+    public void fontsAreBlockedInEveryWindowOfTheScenario() {
+        SharedBrowser fastBrowser = SharedBrowser.open(browser, BrowserProfile.FAST, Duration.ZERO);
+        WebDriver first = fastBrowser.openTab(closed::add);
+        String firstWindow = first.getWindowHandle();
+        first.switchTo().newWindow(WindowType.TAB);
+        String newWindow = first.getWindowHandle();
+        String popup = browser.openWindowFromThePage(browser.contextOf(firstWindow));
+
+        assertTrue(first.getWindowHandles().contains(popup));
+
+        assertEquals(Set.of(firstWindow, newWindow, popup), browser.windowsBlockingUrls);
+        assertEquals(newWindow, first.getTitle());
+    }
+}
@@ -5,40 +5,58 @@ import org.openqa.selenium.chrome.ChromeDriver;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.remote.RemoteWebDriver;
 
-import java.net.URI;
-import java.util.function.Supplier;
+import java.util.function.Function;
 
 @RequiredArgsConstructor
 public enum WebDriverDefinition {
 
-    WEBKIT(() -> {
+    WEBKIT(options -> {
 
         if(!Boolean.parseBoolean(System.getenv("PIPELINE_EXECUTION"))) {
             System.setProperty("webdriver.chrome.driver", "src/test/resources/chromedriver");
 
-            ChromeOptions options = new ChromeOptions();
             options.addArguments("--remote-allow-origins=*");//, "--headless");
             return new ChromeDriver(options);
         }
         else {
-            ChromeOptions options = new ChromeOptions();
             options.addArguments("--headless");
             options.addArguments("--remote-allow-origins=*");
             try {
-                return new RemoteWebDriver(new URI("http://localhost:4444/wd/hub").toURL(), options);
+                return new RemoteWebDriver(GridStatus.gridUrl().resolve("/wd/hub").toURL(), options);
             } catch (Exception e) {
                 throw new RuntimeException("Failed to create Chrome driver", e);
             }
         }
     });
 
-    private final Supplier<RemoteWebDriver> driverFactory;
+    // Creates the driver from options the browser profile has already been applied to
+    private final Function<ChromeOptions, RemoteWebDriver> driverFactory;
 
     /**
-     * Gets the assigned WebDriver.
+     * Gets the assigned WebDriver, using the browser profile selected for the run.
      * @return The WebDriver.
      */
     public RemoteWebDriver createDriver(){
-        return driverFactory.get();
+        return createDriver(BrowserProfile.selected());
+    }
+
+    /**
+     * Gets the assigned WebDriver.
+     * @param profile The browser profile to configure it with.
+     * @return The WebDriver.
+     */
+    public RemoteWebDriver createDriver(BrowserProfile profile){
+        int cacheDirectory = profile.takeCacheDirectory();
+        RemoteWebDriver driver;
+        try {
+            ChromeOptions options = new ChromeOptions();
+            profile.applyTo(options, cacheDirectory);
+            driver = driverFactory.apply(options);
+        } catch (RuntimeException e) {
+            profile.releaseCacheDirectory(cacheDirectory);
+            throw e;
+        }
+        profile.applyTo(driver, cacheDirectory);
+        return driver;
     }
 }
\ No newline at end of file
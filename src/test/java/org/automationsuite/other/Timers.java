@@ -1,12 +1,18 @@
 package org.automationsuite.other;
 
+import org.automationsuite.ElementInformation.ElementInfoStruct;
+import org.automationsuite.other.WaitEngine.BrowserCondition;
 import org.automationsuite.pages.BasePage;
+import org.automationsuite.pages.ElementHandle;
 import org.openqa.selenium.*;
 import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
-import org.openqa.selenium.support.ui.WebDriverWait;
 
 import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 
 public class Timers extends BasePage {
@@ -14,6 +20,9 @@ public class Timers extends BasePage {
     private final int urlTimeLimit = 60;
     private final int elementPresenceTimeLimit = 45;
     private final int elementChecksTimeLimit = 45;
+    private final WaitEngine waitEngine = new WaitEngine();
+    // Elements that were not found through DriverPage, e.g. returned by a script, do not know their locator
+    private static final String unknownLocator = "element without a locator";
 
     /**
      * A test timer used to quickly test steps during development. Only ever used as a last resort beyond that.
@@ -33,7 +42,8 @@ public class Timers extends BasePage {
      */
 
     public void waitUntilPageIsReady() {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(30)).until((
+        waitUntilInBrowser("waitUntilPageIsReady", null,
+                Duration.ofSeconds(30), BrowserCondition.PAGE_READY, null, null, (
                 ExpectedCondition<Boolean>) webdriver -> {
             assert webdriver != null;
             return ((JavascriptExecutor) webdriver).executeScript("return document.readyState").equals("complete");
@@ -44,10 +54,12 @@ public class Timers extends BasePage {
      * A timer that waits for the presence of an element via its xPath attribute.
      *
      * @param elementLocator The locator of the element.
+     * @return The element once it is present.
      */
 
-    public void waitUntilPresenceOfXpathElementIsLocated(String elementLocator) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementPresenceTimeLimit)).until(
+    public WebElement waitUntilPresenceOfXpathElementIsLocated(String elementLocator) {
+        return waitUntilInBrowser("waitUntilPresenceOfXpathElementIsLocated", describe(By.xpath(elementLocator), null),
+                Duration.ofSeconds(elementPresenceTimeLimit), BrowserCondition.PRESENCE_OF_XPATH, elementLocator, null,
                 ExpectedConditions.presenceOfElementLocated(By.xpath(elementLocator)));
     }
 
@@ -55,10 +67,12 @@ public class Timers extends BasePage {
      * A timer that waits for the presence of an element via its class attribute.
      *
      * @param elementLocator The locator of the element.
+     * @return The element once it is present.
      */
 
-    public void waitUntilPresenceOfClassElementIsLocated(String elementLocator) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementPresenceTimeLimit)).until(
+    public WebElement waitUntilPresenceOfClassElementIsLocated(String elementLocator) {
+        return waitUntilInBrowser("waitUntilPresenceOfClassElementIsLocated", describe(By.className(elementLocator), null),
+                Duration.ofSeconds(elementPresenceTimeLimit), BrowserCondition.PRESENCE_OF_CLASS_NAME, elementLocator, null,
                 ExpectedConditions.presenceOfElementLocated(By.className(elementLocator)));
     }
 
@@ -66,9 +80,11 @@ public class Timers extends BasePage {
      * A timer that waits for the presence of an element via its id attribute.
      *
      * @param elementLocator The locator of the element.
+     * @return The element once it is present.
      */
-    public void waitUntilPresenceOfIdElementIsLocated(String elementLocator) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementPresenceTimeLimit)).until(
+    public WebElement waitUntilPresenceOfIdElementIsLocated(String elementLocator) {
+        return waitUntilInBrowser("waitUntilPresenceOfIdElementIsLocated", describe(By.id(elementLocator), null),
+                Duration.ofSeconds(elementPresenceTimeLimit), BrowserCondition.PRESENCE_OF_ID, elementLocator, null,
                 ExpectedConditions.presenceOfElementLocated(By.id(elementLocator)));
     }
 
@@ -76,9 +92,11 @@ public class Timers extends BasePage {
      * A timer that waits for the presence of an element via its custom css attribute.
      *
      * @param elementLocator The locator of the element.
+     * @return The element once it is present.
      */
-    public void waitUntilPresenceOfCustomAttributeElementIsLocated(String elementLocator) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementPresenceTimeLimit)).until(
+    public WebElement waitUntilPresenceOfCustomAttributeElementIsLocated(String elementLocator) {
+        return waitUntilInBrowser("waitUntilPresenceOfCustomAttributeElementIsLocated", describe(By.cssSelector(elementLocator), null),
+                Duration.ofSeconds(elementPresenceTimeLimit), BrowserCondition.PRESENCE_OF_CSS_SELECTOR, elementLocator, null,
                 ExpectedConditions.presenceOfElementLocated(By.cssSelector(elementLocator)));
     }
 
@@ -89,7 +107,7 @@ public class Timers extends BasePage {
      */
 
     public void waitUntilElementIsVisible(WebElement element) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementChecksTimeLimit)).until(
+        waitUntil("waitUntilElementIsVisible", describe(element), Duration.ofSeconds(elementChecksTimeLimit),
                 ExpectedConditions.visibilityOf(element));
     }
 
@@ -100,7 +118,7 @@ public class Timers extends BasePage {
      */
 
     public void waitUntilElementIsInvisible(WebElement element) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementChecksTimeLimit)).until(
+        waitUntil("waitUntilElementIsInvisible", describe(element), Duration.ofSeconds(elementChecksTimeLimit),
                 ExpectedConditions.invisibilityOf(element));
     }
 
@@ -111,7 +129,7 @@ public class Timers extends BasePage {
      */
 
     public void waitUntilElementIsClickable(WebElement element) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementChecksTimeLimit)).until(
+        waitUntil("waitUntilElementIsClickable", describe(element), Duration.ofSeconds(elementChecksTimeLimit),
                 ExpectedConditions.elementToBeClickable(element));
     }
 
@@ -122,7 +140,7 @@ public class Timers extends BasePage {
      */
 
     public void waitUntilUrlEquals(String urlToBe) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(urlTimeLimit)).until(
+        waitUntil("waitUntilUrlEquals", urlToBe, Duration.ofSeconds(urlTimeLimit),
                 ExpectedConditions.urlToBe(urlToBe));
     }
 
@@ -133,13 +151,13 @@ public class Timers extends BasePage {
      */
 
     public void waitUntilUrlContains(String urlToContain) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(urlTimeLimit)).until(
+        waitUntil("waitUntilUrlContains", urlToContain, Duration.ofSeconds(urlTimeLimit),
                 ExpectedConditions.urlContains(urlToContain));
     }
 
     // todo javadoc
     public void waitUntilUrlHasChanged(String originalUrl) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(urlTimeLimit)).until(
+        waitUntil("waitUntilUrlHasChanged", originalUrl, Duration.ofSeconds(urlTimeLimit),
                 driver -> !driver.getCurrentUrl().equals(originalUrl));
     }
 
@@ -151,7 +169,7 @@ public class Timers extends BasePage {
      */
 
     public void waitUntilValueInFieldMatches(WebElement element, String valueToMatch) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementChecksTimeLimit)).until(
+        waitUntil("waitUntilValueInFieldMatches", describe(element), Duration.ofSeconds(elementChecksTimeLimit),
                 ExpectedConditions.textToBePresentInElementValue(element, valueToMatch));
     }
 
@@ -162,7 +180,7 @@ public class Timers extends BasePage {
      */
 
     public void waitUntilElementIsEnabled(WebElement element) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementChecksTimeLimit)).until((
+        waitUntil("waitUntilElementIsEnabled", describe(element), Duration.ofSeconds(elementChecksTimeLimit), (
                 ExpectedCondition<Boolean>) _ -> element.isEnabled());
     }
 
@@ -173,7 +191,7 @@ public class Timers extends BasePage {
      */
 
     public void waitUntilElementIsDisabled(WebElement element) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementChecksTimeLimit)).until((
+        waitUntil("waitUntilElementIsDisabled", describe(element), Duration.ofSeconds(elementChecksTimeLimit), (
                 ExpectedCondition<Boolean>) _ -> !element.isEnabled());
     }
 
@@ -184,18 +202,18 @@ public class Timers extends BasePage {
      */
 
     public void waitUntilFieldValueIsEmpty(WebElement element) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementChecksTimeLimit)).until(
+        waitUntil("waitUntilFieldValueIsEmpty", describe(element), Duration.ofSeconds(elementChecksTimeLimit),
                 ExpectedConditions.not(ExpectedConditions.attributeToBeNotEmpty(element, "value")));
     }
 
     public void waitUntilFieldValueIsNotEmpty(WebElement element) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementChecksTimeLimit)).until(
+        waitUntil("waitUntilFieldValueIsNotEmpty", describe(element), Duration.ofSeconds(elementChecksTimeLimit),
                 ExpectedConditions.attributeToBeNotEmpty(element, "value"));
     }
 
     public void waitUntilFieldValueIsSet(WebElement element) {
         try {
-            new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(1)).until(
+            waitUntil("waitUntilFieldValueIsSet", describe(element), Duration.ofSeconds(1),
                     ExpectedConditions.attributeToBeNotEmpty(element, "value"));
         } catch (TimeoutException ex) {
             //System.out.println("No text");
@@ -211,7 +229,7 @@ public class Timers extends BasePage {
      */
 
     public void waitUntilAttributeContains(WebElement element, String attribute, String textToContain) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementChecksTimeLimit)).until(
+        waitUntil("waitUntilAttributeContains", describe(element), Duration.ofSeconds(elementChecksTimeLimit),
                 ExpectedConditions.attributeContains(element, attribute, textToContain));
     }
 
@@ -224,7 +242,7 @@ public class Timers extends BasePage {
      */
 
     public void waitUntilAttributeDoesNotContain(WebElement element, String attribute, String textToNotContain) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementChecksTimeLimit)).until(
+        waitUntil("waitUntilAttributeDoesNotContain", describe(element), Duration.ofSeconds(elementChecksTimeLimit),
                 ExpectedConditions.not(ExpectedConditions.attributeContains(element, attribute, textToNotContain)));
     }
 
@@ -233,10 +251,12 @@ public class Timers extends BasePage {
      *
      * @param parentElement The WebElement reference to the parent element in context.
      * @param locator       The locator of the child element.
+     * @return The child element once it is present.
      */
 
-    public void waitUntilPresenceOfNestedCustomAttributeElement(WebElement parentElement, String locator) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementPresenceTimeLimit)).until(
+    public WebElement waitUntilPresenceOfNestedCustomAttributeElement(WebElement parentElement, String locator) {
+        return waitUntilInBrowser("waitUntilPresenceOfNestedCustomAttributeElement", describe(By.cssSelector(locator), parentElement),
+                Duration.ofSeconds(elementPresenceTimeLimit), BrowserCondition.PRESENCE_OF_CSS_SELECTOR, locator, parentElement,
                 ExpectedConditions.presenceOfNestedElementLocatedBy(parentElement, By.cssSelector(locator)));
     }
 
@@ -245,10 +265,12 @@ public class Timers extends BasePage {
      *
      * @param parentElement The WebElement reference to the parent element in context.
      * @param locator       The locator of the child element.
+     * @return The child element once it is present.
      */
 
-    public void waitUntilPresenceOfNestedIdElement(WebElement parentElement, String locator) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementPresenceTimeLimit)).until(
+    public WebElement waitUntilPresenceOfNestedIdElement(WebElement parentElement, String locator) {
+        return waitUntilInBrowser("waitUntilPresenceOfNestedIdElement", describe(By.id(locator), parentElement),
+                Duration.ofSeconds(elementPresenceTimeLimit), BrowserCondition.PRESENCE_OF_ID, locator, parentElement,
                 ExpectedConditions.presenceOfNestedElementLocatedBy(parentElement, By.id(locator)));
     }
 
@@ -257,10 +279,12 @@ public class Timers extends BasePage {
      *
      * @param parentElement The WebElement reference to the parent element in context.
      * @param locator       The locator of the child element.
+     * @return The child element once it is present.
      */
 
-    public void waitUntilPresenceOfNestedXpathElement(WebElement parentElement, String locator) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementPresenceTimeLimit)).until(
+    public WebElement waitUntilPresenceOfNestedXpathElement(WebElement parentElement, String locator) {
+        return waitUntilInBrowser("waitUntilPresenceOfNestedXpathElement", describe(By.xpath(locator), parentElement),
+                Duration.ofSeconds(elementPresenceTimeLimit), BrowserCondition.PRESENCE_OF_XPATH, locator, parentElement,
                 ExpectedConditions.presenceOfNestedElementLocatedBy(parentElement, By.xpath(locator)));
     }
 
@@ -269,13 +293,74 @@ public class Timers extends BasePage {
      *
      * @param parentElement The WebElement reference to the parent element in context.
      * @param locator       The locator of the child element.
+     * @return The child element once it is present.
      */
 
-    public void waitUntilPresenceOfNestedClassElement(WebElement parentElement, String locator) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(elementPresenceTimeLimit)).until(
+    public WebElement waitUntilPresenceOfNestedClassElement(WebElement parentElement, String locator) {
+        return waitUntilInBrowser("waitUntilPresenceOfNestedClassElement", describe(By.className(locator), parentElement),
+                Duration.ofSeconds(elementPresenceTimeLimit), BrowserCondition.PRESENCE_OF_CLASS_NAME, locator, parentElement,
                 ExpectedConditions.presenceOfNestedElementLocatedBy(parentElement, By.className(locator)));
     }
 
+    /**
+     * A timer that waits for the presence of an element and returns the element the wait found, so it is not
+     * searched for again.
+     *
+     * @param element       The element information.
+     * @param parentElement The WebElement reference to the parent element to search in, null to search the whole page.
+     * @return The element once it is present.
+     */
+
+    public WebElement waitUntilPresenceOfElementIsLocated(ElementInfoStruct element, WebElement parentElement) {
+        return waitUntilInBrowser("waitUntilPresenceOfElementIsLocated", describe(element, parentElement),
+                Duration.ofSeconds(elementPresenceTimeLimit), BrowserCondition.presenceOf(element.getAttributeType()),
+                element.getWaitLocator(), parentElement, parentElement == null
+                        ? ExpectedConditions.presenceOfElementLocated(element.getBy())
+                        : ExpectedConditions.presenceOfNestedElementLocatedBy(parentElement, element.getBy()));
+    }
+
+    /**
+     * A timer that waits for the presence of at least one element and returns every element the wait found, so they
+     * are not searched for again.
+     *
+     * @param element       The element information.
+     * @param parentElement The WebElement reference to the parent element to search in, null to search the whole page.
+     * @return The elements once at least one is present.
+     */
+
+    public List<WebElement> waitUntilPresenceOfAllElementsAreLocated(ElementInfoStruct element, WebElement parentElement) {
+        return waitUntilInBrowser("waitUntilPresenceOfAllElementsAreLocated", describe(element, parentElement),
+                Duration.ofSeconds(elementPresenceTimeLimit), BrowserCondition.presenceOfAll(element.getAttributeType()),
+                element.getWaitLocator(), parentElement, driver -> {
+                    List<WebElement> found = parentElement == null
+                            ? driver.findElements(element.getBy()) : parentElement.findElements(element.getBy());
+                    return found.isEmpty() ? null : found;
+                });
+    }
+
+    /**
+     * A timer that looks for an element that may not be there, for no longer than a short time limit.
+     *
+     * @param element       The element information.
+     * @param parentElement The WebElement reference to the parent element to search in, null to search the whole page.
+     * @param timeout       How long to look for the element, zero to look once without waiting.
+     * @return The element, or empty if it was not present within the time limit.
+     */
+
+    public Optional<WebElement> waitForOptionalElement(ElementInfoStruct element, WebElement parentElement, Duration timeout) {
+        try {
+            return Optional.of(waitUntilInBrowser("waitForOptionalElement", describe(element, parentElement), timeout,
+                    BrowserCondition.presenceOf(element.getAttributeType()), element.getWaitLocator(), parentElement,
+                    driver -> {
+                        List<WebElement> found = parentElement == null
+                                ? driver.findElements(element.getBy()) : parentElement.findElements(element.getBy());
+                        return found.isEmpty() ? null : found.getFirst();
+                    }));
+        } catch (TimeoutException e) {
+            return Optional.empty();
+        }
+    }
+
     /**
      * A timer to wait until an element is checked.
      *
@@ -283,47 +368,121 @@ public class Timers extends BasePage {
      */
 
     public void waitUntilElementIsChecked(WebElement element) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(5)).until((
+        waitUntil("waitUntilElementIsChecked", describe(element), Duration.ofSeconds(5), (
                 ExpectedCondition<Boolean>) _ -> element.isSelected());
     }
 
     public void waitUntilElementTextIsNotEmpty(WebElement element) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(8)).until((
+        waitUntilInBrowser("waitUntilElementTextIsNotEmpty", describe(element),
+                Duration.ofSeconds(8), BrowserCondition.TEXT_NOT_EMPTY, null, element, (
                 ExpectedCondition<Boolean>) _ -> !element.getText().isEmpty());
     }
 
     public void waitUntilElementTextEquals(WebElement element, String expectedText) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(8)).until((
+        waitUntil("waitUntilElementTextEquals", describe(element), Duration.ofSeconds(8), (
                 ExpectedCondition<Boolean>) _ -> !element.getText().equalsIgnoreCase(expectedText));
     }
 
+    // A handle would find the element again rather than go stale, so the wait looks at the element it points at
     public void waitUntilElementIsStale(WebElement element) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(5))
-                .until(ExpectedConditions.stalenessOf(element));
+        waitUntil("waitUntilElementIsStale", describe(element), Duration.ofSeconds(5),
+                ExpectedConditions.stalenessOf(ElementHandle.unwrap(element)));
     }
 
     public void waitUntilTableIncrease(WebElement table, int initialSize) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(5)).until((
-                ExpectedCondition<Boolean>) _ -> table.findElements(By.xpath(".//tbody/tr")).size() == (initialSize + 1));
+        waitUntilInBrowser("waitUntilTableIncrease", describe(table),
+                Duration.ofSeconds(5), BrowserCondition.TABLE_ROW_COUNT, String.valueOf(initialSize + 1), table, (
+                ExpectedCondition<Boolean>) _ -> table.findElements(By.xpath("./tbody/tr")).size() == (initialSize + 1));
+    }
+
+    /**
+     * A timer that waits until a table has at least a number of rows in its body.
+     *
+     * @param table   The WebElement reference to the table.
+     * @param minRows The number of rows to wait for.
+     */
+
+    public void waitUntilTableHasAtLeastRows(WebElement table, int minRows) {
+        waitUntilInBrowser("waitUntilTableHasAtLeastRows", describe(table),
+                Duration.ofSeconds(elementChecksTimeLimit), BrowserCondition.TABLE_MIN_ROWS, String.valueOf(minRows), table, (
+                ExpectedCondition<Boolean>) _ -> table.findElements(By.xpath("./tbody/tr")).size() >= minRows);
+    }
+
+    /**
+     * A timer that waits until a row in the body of a table contains a string.
+     *
+     * @param table         The WebElement reference to the table.
+     * @param textToContain The string a row should contain.
+     */
+
+    public void waitUntilTableContainsRow(WebElement table, String textToContain) {
+        waitUntilInBrowser("waitUntilTableContainsRow", describe(table) + " -> " + textToContain,
+                Duration.ofSeconds(elementChecksTimeLimit), BrowserCondition.TABLE_ROW_CONTAINING, textToContain, table, (
+                ExpectedCondition<Boolean>) _ -> table.findElements(By.xpath("./tbody/tr")).stream()
+                        .anyMatch(row -> row.getText().contains(textToContain)));
     }
 
     public void waitUntilElementIsRefreshed(WebElement element) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(10))
-                .until(ExpectedConditions.refreshed(ExpectedConditions.visibilityOf(element)));
+        waitUntil("waitUntilElementIsRefreshed", describe(element), Duration.ofSeconds(10),
+                ExpectedConditions.refreshed(ExpectedConditions.visibilityOf(element)));
     }
 
     public void waitUntilElementIsRefreshedAndInvisible(WebElement element) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(10))
-                .until(ExpectedConditions.refreshed(ExpectedConditions.invisibilityOf(element)));
+        waitUntil("waitUntilElementIsRefreshedAndInvisible", describe(element), Duration.ofSeconds(10),
+                ExpectedConditions.refreshed(ExpectedConditions.invisibilityOf(element)));
     }
 
     public void waitUntilTableIsDisplayed(WebElement element) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(8)).until((
+        waitUntil("waitUntilTableIsDisplayed", describe(element), Duration.ofSeconds(8), (
                 ExpectedCondition<Boolean>) _ -> element.isDisplayed());
     }
 
     public void waitUntilElementHasRefreshed(WebElement element) {
-        new WebDriverWait(webDriver().getWebDriver(), Duration.ofSeconds(5)).until(
+        waitUntil("waitUntilElementHasRefreshed", describe(element), Duration.ofSeconds(5),
                 ExpectedConditions.refreshed(ExpectedConditions.elementToBeClickable(element)));
     }
+
+    private <T> T waitUntil(String waitName, String waitLocator, Duration timeout, Function<? super WebDriver, T> condition) {
+        return recorded(waitName, waitLocator, timeout, () -> waitEngine.until(webDriver().getWebDriver(), timeout, condition));
+    }
+
+    private <T> T waitUntilInBrowser(String waitName, String waitLocator, Duration timeout, BrowserCondition condition,
+                                     String locator, WebElement root, Function<? super WebDriver, T> fallback) {
+        return recorded(waitName, waitLocator, timeout,
+                () -> waitEngine.untilInBrowser(webDriver().getWebDriver(), timeout, condition, locator, root, fallback));
+    }
+
+    private static String describe(ElementInfoStruct element, WebElement parentElement) {
+        return describe(element.getBy(), parentElement);
+    }
+
+    private static String describe(By by, WebElement parentElement) {
+        return parentElement == null ? by.toString() : describe(parentElement) + " -> " + by;
+    }
+
+    /**
+     * Describes an element for the wait statistics by the locator it was found with, so the waits on it are recorded
+     * together with every other wait on that locator, across elements and scenarios.
+     * @param element The element waited on.
+     * @return The locator of an element found through DriverPage, the same description for any other element.
+     */
+    static String describe(WebElement element) {
+        return ElementHandle.locatorOf(element).map(By::toString).orElse(unknownLocator);
+    }
+
+    /**
+     * Runs a wait and records how long it took in the wait statistics, whether or not it timed out.
+     */
+    private <T> T recorded(String waitName, String waitLocator, Duration timeout, Supplier<T> wait) {
+        long startTime = System.nanoTime();
+        boolean timedOut = false;
+        try {
+            return wait.get();
+        } catch (TimeoutException e) {
+            timedOut = true;
+            throw e;
+        } finally {
+            WaitStatistics.record(waitName, waitLocator, timeout, System.nanoTime() - startTime, waitEngine.lastPollCount(), timedOut);
+        }
+    }
 }
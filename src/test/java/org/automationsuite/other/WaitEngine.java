@@ -0,0 +1,316 @@
+package org.automationsuite.other;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.automationsuite.ElementInformation.ElementAttributeTypes;
+import org.automationsuite.config.DriverPool;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.ui.FluentWait;
+import org.openqa.selenium.support.ui.Sleeper;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Runs the explicit waits of one thread. Every wait polls quickly at first (most conditions are met within a few hundred
+ * milliseconds) then backs off, so a wait ends soon after its condition is met without flooding the Grid with calls
+ * while it is not. Each wait has its own polling state, so a wait nested inside another one's condition, e.g. a page
+ * condition that calls Timers, leaves the outer wait untouched. The driver's implicit wait is switched
+ * off while a wait that looks for elements runs, so a failed lookup inside the wait never adds to its time limit.
+ * Waits with a {@link BrowserCondition} are sent into the page as one asynchronous script that resolves as soon as the
+ * DOM changes to meet the condition, so they cost a single call however long they take.
+ */
+@Slf4j
+public class WaitEngine {
+
+    // Off to always poll from the JVM, e.g. when debugging a page that misbehaves with the in-browser waits
+    private static final boolean inBrowserWaits = Boolean.parseBoolean(System.getProperty("IN_BROWSER_WAITS", "true"));
+    // Lets the script report a timeout itself before the driver gives up on it
+    private static final Duration scriptTimeoutMargin = Duration.ofSeconds(5);
+    private static final String waitScript = """
+            var kind = arguments[0], locator = arguments[1], root = arguments[2] || document, timeout = arguments[3];
+            var done = arguments[arguments.length - 1];
+            var all = kind.indexOf('all-') === 0;
+            if (all) {
+                kind = kind.substring('all-'.length);
+            }
+            function find(first) {
+                switch (kind) {
+                    case 'id': return first ? root.querySelector('#' + CSS.escape(locator)) : root.querySelectorAll('#' + CSS.escape(locator));
+                    case 'class': return first ? root.getElementsByClassName(locator)[0] : root.getElementsByClassName(locator);
+                    case 'css': return first ? root.querySelector(locator) : root.querySelectorAll(locator);
+                    case 'xpath':
+                        if (first) {
+                            return document.evaluate(locator, root, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;
+                        }
+                        var snapshot = document.evaluate(locator, root, null, XPathResult.ORDERED_NODE_SNAPSHOT_TYPE, null);
+                        var nodes = [];
+                        for (var i = 0; i < snapshot.snapshotLength; i++) {
+                            nodes.push(snapshot.snapshotItem(i));
+                        }
+                        return nodes;
+                }
+            }
+            // The text a user sees, as getText returns it: innerText of an element that is not rendered is its
+            // textContent, hidden text included
+            function renderedText(element) {
+                return element.getClientRects().length > 0 ? element.innerText : '';
+            }
+            // The rows in the bodies of the table itself, not those of tables nested in its cells
+            function bodyRows() {
+                var rows = [];
+                if (!root.tBodies) {
+                    return rows;
+                }
+                for (var i = 0; i < root.tBodies.length; i++) {
+                    rows = rows.concat(Array.prototype.slice.call(root.tBodies[i].rows));
+                }
+                return rows;
+            }
+            function check() {
+                switch (kind) {
+                    case 'ready': return document.readyState === 'complete' || null;
+                    case 'text': return renderedText(root).trim() !== '' || null;
+                    case 'row-count': return bodyRows().length === Number(locator) || null;
+                    case 'min-rows': return bodyRows().length >= Number(locator) || null;
+                    case 'row-text': return bodyRows().some(function (row) {
+                        return renderedText(row).indexOf(locator) >= 0;
+                    }) || null;
+                }
+                if (!all) {
+                    return find(true) || null;
+                }
+                var found = Array.prototype.slice.call(find(false));
+                return found.length > 0 ? found : null;
+            }
+            var result = check();
+            if (result) {
+                done(result);
+                return;
+            }
+            var finished = false;
+            var observer = new MutationObserver(onChange);
+            // Catches changes no mutation reports, e.g. text hidden or shown by a style sheet
+            var fallbackTimer = setInterval(onChange, 500);
+            var timeoutTimer = setTimeout(function () { finish(null); }, timeout);
+            function onChange() {
+                var changed = check();
+                if (changed) {
+                    finish(changed);
+                }
+            }
+            function finish(value) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                observer.disconnect();
+                clearInterval(fallbackTimer);
+                clearTimeout(timeoutTimer);
+                document.removeEventListener('readystatechange', onChange);
+                done(value);
+            }
+            observer.observe(document, {childList: true, subtree: true, attributes: true, characterData: true});
+            document.addEventListener('readystatechange', onChange);
+            """;
+
+    private static final Duration firstPollInterval = Duration.ofMillis(50);
+    private static final Duration maxPollInterval = Duration.ofSeconds(1);
+
+    private WebDriver waitDriver;
+    // The longest script timeout set on waitDriver, so it is only raised when a longer wait needs it
+    private Duration scriptTimeout = Duration.ZERO;
+    // Waits can be nested through conditions that call other waits, only the outermost one that looks for elements
+    // switches the implicit wait
+    private int locatingWaits;
+    private int polls;
+
+    /**
+     * Waits until a condition that only checks elements already found, or the page, returns something other than null
+     * or false.
+     * @param driver The driver the condition is evaluated with.
+     * @param timeout The maximum time to wait.
+     * @param condition The condition to wait for.
+     * @return What the condition returned.
+     * @param <T> The type the condition returns.
+     * @throws org.openqa.selenium.TimeoutException If the condition is not met within the timeout.
+     */
+    public <T> T until(WebDriver driver, Duration timeout, Function<? super WebDriver, T> condition) {
+        return until(driver, timeout, condition, false);
+    }
+
+    /**
+     * Waits until a condition returns something other than null or false.
+     * @param driver The driver the condition is evaluated with.
+     * @param timeout The maximum time to wait.
+     * @param condition The condition to wait for.
+     * @param locatesElements True if the condition looks for elements, so the implicit wait has to be off while it runs.
+     * @return What the condition returned.
+     * @param <T> The type the condition returns.
+     * @throws org.openqa.selenium.TimeoutException If the condition is not met within the timeout.
+     */
+    public <T> T until(WebDriver driver, Duration timeout, Function<? super WebDriver, T> condition, boolean locatesElements) {
+        BackoffSleeper sleeper = new BackoffSleeper(timeout);
+        FluentWait<WebDriver> driverWait = new FluentWait<>(driver, Clock.systemDefaultZone(), sleeper)
+                .withTimeout(timeout)
+                .ignoring(NotFoundException.class);
+        boolean switchesImplicitWait = locatesElements && locatingWaits++ == 0;
+        if (switchesImplicitWait) {
+            driver.manage().timeouts().implicitlyWait(Duration.ZERO);
+        }
+        try {
+            return driverWait.until(condition);
+        } finally {
+            if (locatesElements) {
+                locatingWaits--;
+            }
+            if (switchesImplicitWait) {
+                driver.manage().timeouts().implicitlyWait(DriverPool.implicitWait());
+            }
+            // Set last, so a wait nested in this one's condition does not leave its own count behind
+            polls = sleeper.sleeps + 1;
+        }
+    }
+
+    /**
+     * Waits until a condition is met in the page, with one asynchronous script that watches the DOM for changes.
+     * Falls back to polling from the JVM when in-browser waits are off, when the driver is a tab in a shared browser
+     * (the script would hold the browser for the whole wait), or when the script cannot finish, e.g. because the page
+     * navigated away while it ran.
+     * @param driver The driver the condition is evaluated with.
+     * @param timeout The maximum time to wait.
+     * @param condition What to wait for in the page.
+     * @param locator The locator of the element to wait for, null for conditions that do not look for one.
+     * @param root The element the condition is evaluated in: the parent of a nested element, or the element whose
+     *             text is waited for. Null for the whole document.
+     * @param fallback The same condition evaluated from the JVM.
+     * @return What the condition returned, the element itself for presence conditions.
+     * @param <T> The type the condition returns.
+     * @throws TimeoutException If the condition is not met within the timeout.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T untilInBrowser(WebDriver driver, Duration timeout, BrowserCondition condition, String locator,
+                                WebElement root, Function<? super WebDriver, T> fallback) {
+        if (!inBrowserWaits || !DriverPool.ownsBrowser(driver)) {
+            return until(driver, timeout, fallback, condition.locatesElements);
+        }
+        long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            raiseScriptTimeout(driver, timeout.plus(scriptTimeoutMargin));
+            Object result = ((JavascriptExecutor) driver).executeAsyncScript(waitScript, condition.scriptKind, locator, root, timeout.toMillis());
+            polls = 1;
+            if (result == null) {
+                throw new TimeoutException("Expected condition failed: waiting for " + condition + (locator == null ? "" : " " + locator)
+                        + " (tried for " + timeout.toSeconds() + " second(s) in the browser)");
+            }
+            return (T) result;
+        } catch (TimeoutException e) {
+            throw e;
+        } catch (WebDriverException e) {
+            log.debug("In-browser wait for {} could not finish, polling instead: {}", condition, e.getMessage());
+            return until(driver, Duration.ofNanos(Math.max(0, deadline - System.nanoTime())), fallback, condition.locatesElements);
+        }
+    }
+
+    /**
+     * @return How many times the condition of the last wait was evaluated, counting an in-browser wait as one.
+     */
+    public int lastPollCount() {
+        return polls;
+    }
+
+    private void raiseScriptTimeout(WebDriver driver, Duration timeout) {
+        if (driver != waitDriver) {
+            waitDriver = driver;
+            scriptTimeout = Duration.ZERO;
+        }
+        if (timeout.compareTo(scriptTimeout) > 0) {
+            driver.manage().timeouts().scriptTimeout(timeout);
+            scriptTimeout = timeout;
+        }
+    }
+
+    /**
+     * The conditions an in-browser wait can resolve in the page.
+     */
+    @RequiredArgsConstructor
+    public enum BrowserCondition {
+        PAGE_READY("ready", false),
+        TEXT_NOT_EMPTY("text", false),
+        // The table rows conditions take the row count or the text to look for as the locator
+        TABLE_ROW_COUNT("row-count", true),
+        TABLE_MIN_ROWS("min-rows", true),
+        TABLE_ROW_CONTAINING("row-text", true),
+        PRESENCE_OF_ID("id", true),
+        PRESENCE_OF_XPATH("xpath", true),
+        PRESENCE_OF_CLASS_NAME("class", true),
+        PRESENCE_OF_CSS_SELECTOR("css", true),
+        PRESENCE_OF_ALL_ID("all-id", true),
+        PRESENCE_OF_ALL_XPATH("all-xpath", true),
+        PRESENCE_OF_ALL_CLASS_NAME("all-class", true),
+        PRESENCE_OF_ALL_CSS_SELECTOR("all-css", true);
+
+        private final String scriptKind;
+        // Whether the condition polled from the JVM looks for elements, which the implicit wait would slow down
+        private final boolean locatesElements;
+
+        /**
+         * Returns the presence condition for an attribute type.
+         * @param attributeType The attribute type an element is located by.
+         * @return The condition. DataTestId elements are located by their css selector, so the locator waited for has
+         *         to be the selector, as DriverPage builds it.
+         */
+        public static BrowserCondition presenceOf(ElementAttributeTypes attributeType) {
+            return switch (attributeType) {
+                case Id -> PRESENCE_OF_ID;
+                case xPath -> PRESENCE_OF_XPATH;
+                case ClassName -> PRESENCE_OF_CLASS_NAME;
+                case DataTestId -> PRESENCE_OF_CSS_SELECTOR;
+            };
+        }
+
+        /**
+         * Returns the condition that at least one element is present for an attribute type, which resolves to every
+         * matching element.
+         * @param attributeType The attribute type the elements are located by.
+         * @return The condition. As with {@link #presenceOf}, DataTestId elements are located by their css selector.
+         */
+        public static BrowserCondition presenceOfAll(ElementAttributeTypes attributeType) {
+            return switch (attributeType) {
+                case Id -> PRESENCE_OF_ALL_ID;
+                case xPath -> PRESENCE_OF_ALL_XPATH;
+                case ClassName -> PRESENCE_OF_ALL_CLASS_NAME;
+                case DataTestId -> PRESENCE_OF_ALL_CSS_SELECTOR;
+            };
+        }
+    }
+
+    /**
+     * Ignores the fixed polling interval of the wait and sleeps for a doubling interval instead, never past the end of
+     * the wait.
+     */
+    private static final class BackoffSleeper implements Sleeper {
+
+        private final long deadlineNanos;
+        private long nextSleepNanos = firstPollInterval.toNanos();
+        private int sleeps;
+
+        private BackoffSleeper(Duration timeout) {
+            deadlineNanos = System.nanoTime() + timeout.toNanos();
+        }
+
+        @Override
+        public void sleep(Duration ignored) throws InterruptedException {
+            long sleepNanos = Math.max(0, Math.min(nextSleepNanos, deadlineNanos - System.nanoTime()));
+            nextSleepNanos = Math.min(nextSleepNanos * 2, maxPollInterval.toNanos());
+            sleeps++;
+            Thread.sleep(Duration.ofNanos(sleepNanos));
+        }
+    }
+}
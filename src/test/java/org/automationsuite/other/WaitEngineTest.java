@@ -0,0 +1,69 @@
+package org.automationsuite.other;
+
+import org.automationsuite.config.DriverPool;
+import org.junit.Test;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that nested waits keep their own polling state and that only waits looking for elements touch the implicit
+ * wait.
+ */
+public class WaitEngineTest {
+
+    private final WaitEngine waitEngine = new WaitEngine();
+    private final List<Duration> implicitWaits = new ArrayList<>();
+    private final WebDriver driver = recordingImplicitWaits();
+
+    @Test
+    public void aNestedWaitDoesNotShortenTheWaitItRunsIn() {
+        int[] outerPolls = {0};
+        Boolean result = waitEngine.until(driver, Duration.ofSeconds(5), _ -> {
+            try {
+                waitEngine.until(driver, Duration.ofMillis(20), _ -> null);
+            } catch (TimeoutException e) {
+                // The inner wait is expected to run out, the outer one is not
+            }
+            return ++outerPolls[0] == 3 ? true : null;
+        });
+
+        assertTrue(result);
+        assertEquals(3, outerPolls[0]);
+        assertEquals(3, waitEngine.lastPollCount());
+    }
+
+    @Test
+    public void onlyWaitsThatLookForElementsSwitchTheImplicitWait() {
+        waitEngine.until(driver, Duration.ofSeconds(1), _ -> true);
+        assertEquals(List.of(), implicitWaits);
+
+        waitEngine.until(driver, Duration.ofSeconds(1), _ -> waitEngine.until(driver, Duration.ofSeconds(1), _ -> true, true), true);
+        assertEquals(List.of(Duration.ZERO, DriverPool.implicitWait()), implicitWaits);
+    }
+
+    // Only the timeouts are used by the engine outside the in-browser waits
+    private WebDriver recordingImplicitWaits() {
+        WebDriver.Timeouts timeouts = proxy(WebDriver.Timeouts.class, (self, method, args) -> {
+            if (method.getName().equals("implicitlyWait")) {
+                implicitWaits.add((Duration) args[0]);
+            }
+            return self;
+        });
+        WebDriver.Options options = proxy(WebDriver.Options.class, (_, method, _) ->
+                method.getName().equals("timeouts") ? timeouts : null);
+        return proxy(WebDriver.class, (_, method, _) -> method.getName().equals("manage") ? options : null);
+    }
+
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+}
@@ -0,0 +1,210 @@
+package org.automationsuite.other;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Records how long every wait in Timers took, how often it polled and whether it timed out. Every thread records into
+ * its own recorder, so recording never contends with other scenarios, and the recorders are merged into one report
+ * at the end of the run: the waits that took the most time in total, and the waits whose slowest runs came closest to
+ * their time limit.
+ */
+@Slf4j
+public class WaitStatistics {
+
+    // How many waits each part of the logged report lists
+    private static final int reportSize = Integer.parseInt(System.getProperty("WAIT_REPORT_SIZE", "10"));
+    // Every wait is written to this file, one line per wait and locator
+    private static final String reportFile = System.getProperty("WAIT_REPORT", "target/wait-report.csv");
+
+    private static final Queue<Recorder> recorders = new ConcurrentLinkedQueue<>();
+    private static final ThreadLocal<Recorder> threadRecorder = ThreadLocal.withInitial(() -> {
+        Recorder recorder = new Recorder();
+        recorders.add(recorder);
+        return recorder;
+    });
+
+    private WaitStatistics(){}
+
+    /**
+     * Records one wait on the calling thread.
+     * @param waitName The Timers method that waited.
+     * @param locator What it waited for, null if it waited for the page as a whole.
+     * @param limit The time limit of the wait.
+     * @param elapsedNanos How long the wait took.
+     * @param polls How many times the condition was evaluated.
+     * @param timedOut True if the condition was not met within the limit.
+     */
+    public static void record(String waitName, String locator, Duration limit, long elapsedNanos, int polls, boolean timedOut) {
+        threadRecorder.get().add(new WaitKey(waitName, locator == null ? "" : locator), limit, elapsedNanos, polls, timedOut);
+    }
+
+    /**
+     * Merges what every thread recorded, logs the slowest waits and the waits closest to their limit, and writes
+     * every wait to the WAIT_REPORT file.
+     */
+    public static void report() {
+        List<WaitSummary> summaries = summarise();
+        if (summaries.isEmpty()) {
+            return;
+        }
+        long waits = summaries.stream().mapToLong(WaitSummary::count).sum();
+        long totalNanos = summaries.stream().mapToLong(WaitSummary::totalNanos).sum();
+        long timeouts = summaries.stream().mapToLong(WaitSummary::timeouts).sum();
+        log.info("Waits: {} waits took {} in total, {} timed out", waits, seconds(totalNanos), timeouts);
+
+        log.info("Slowest waits in total:");
+        summaries.stream()
+                .sorted(Comparator.comparingLong(WaitSummary::totalNanos).reversed())
+                .limit(reportSize)
+                .forEach(summary -> log.info("  {} {} total = {} over {} waits, p50 = {}, p99 = {}, {} polls on average, {} timed out",
+                        summary.key().waitName(), summary.key().locator(), seconds(summary.totalNanos()), summary.count(),
+                        seconds(summary.p50Nanos()), seconds(summary.p99Nanos()), summary.averagePolls(), summary.timeouts()));
+
+        log.info("Waits closest to their time limit:");
+        summaries.stream()
+                .sorted(Comparator.comparingDouble(WaitSummary::headroomUsed).reversed())
+                .limit(reportSize)
+                .forEach(summary -> log.info("  {} {} p99 = {} of {}", summary.key().waitName(), summary.key().locator(),
+                        seconds(summary.p99Nanos()), seconds(summary.limit().toNanos())));
+
+        write(summaries);
+    }
+
+    /**
+     * @return One summary for every wait and locator recorded so far, merged across threads.
+     */
+    static List<WaitSummary> summarise() {
+        Map<WaitKey, Samples> merged = new HashMap<>();
+        for (Recorder recorder : recorders) {
+            recorder.mergeInto(merged);
+        }
+        return merged.entrySet().stream()
+                .map(entry -> entry.getValue().summarise(entry.getKey()))
+                .toList();
+    }
+
+    private static void write(List<WaitSummary> summaries) {
+        List<String> lines = new ArrayList<>();
+        lines.add("wait,locator,count,total_ms,p50_ms,p99_ms,max_ms,limit_ms,average_polls,timeouts");
+        summaries.stream()
+                .sorted(Comparator.comparingLong(WaitSummary::totalNanos).reversed())
+                .forEach(summary -> lines.add(String.join(",", summary.key().waitName(), csv(summary.key().locator()),
+                        String.valueOf(summary.count()), millis(summary.totalNanos()), millis(summary.p50Nanos()),
+                        millis(summary.p99Nanos()), millis(summary.maxNanos()), String.valueOf(summary.limit().toMillis()),
+                        String.valueOf(summary.averagePolls()), String.valueOf(summary.timeouts()))));
+        try {
+            Path path = Paths.get(reportFile);
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.write(path, lines);
+            log.info("Wait report written to {}", path);
+        } catch (IOException e) {
+            log.warn("Could not write the wait report to {}: {}", reportFile, e.getMessage());
+        }
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.1fs", nanos / 1e9);
+    }
+
+    private static String millis(long nanos) {
+        return String.valueOf(nanos / 1_000_000);
+    }
+
+    private static String csv(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    record WaitKey(String waitName, String locator) {}
+
+    record WaitSummary(WaitKey key, int count, long totalNanos, long p50Nanos, long p99Nanos, long maxNanos,
+                               Duration limit, long averagePolls, int timeouts) {
+
+        /**
+         * @return How much of its time limit the slowest runs of the wait used, 1 for a wait at its limit.
+         */
+        private double headroomUsed() {
+            return limit.isZero() ? 0 : (double) p99Nanos / limit.toNanos();
+        }
+    }
+
+    /**
+     * The waits of one thread. Only that thread adds to it, the lock only guards the merge at the end of the run
+     * against a scenario that is still running.
+     */
+    private static final class Recorder {
+
+        private final Map<WaitKey, Samples> samples = new HashMap<>();
+
+        private synchronized void add(WaitKey key, Duration limit, long elapsedNanos, int polls, boolean timedOut) {
+            samples.computeIfAbsent(key, _ -> new Samples()).add(limit, elapsedNanos, polls, timedOut);
+        }
+
+        private synchronized void mergeInto(Map<WaitKey, Samples> merged) {
+            samples.forEach((key, keySamples) -> merged.computeIfAbsent(key, _ -> new Samples()).addAll(keySamples));
+        }
+    }
+
+    /**
+     * Every run of one wait on one locator.
+     */
+    private static final class Samples {
+
+        private long[] elapsedNanos = new long[8];
+        private int count;
+        private long polls;
+        private int timeouts;
+        private Duration limit = Duration.ZERO;
+
+        private void add(Duration waitLimit, long nanos, int waitPolls, boolean timedOut) {
+            if (count == elapsedNanos.length) {
+                elapsedNanos = Arrays.copyOf(elapsedNanos, count * 2);
+            }
+            elapsedNanos[count++] = nanos;
+            polls += waitPolls;
+            timeouts += timedOut ? 1 : 0;
+            if (waitLimit.compareTo(limit) > 0) {
+                limit = waitLimit;
+            }
+        }
+
+        private void addAll(Samples other) {
+            elapsedNanos = Arrays.copyOf(elapsedNanos, Math.max(elapsedNanos.length, count + other.count));
+            System.arraycopy(other.elapsedNanos, 0, elapsedNanos, count, other.count);
+            count += other.count;
+            polls += other.polls;
+            timeouts += other.timeouts;
+            if (other.limit.compareTo(limit) > 0) {
+                limit = other.limit;
+            }
+        }
+
+        private WaitSummary summarise(WaitKey key) {
+            long[] sorted = Arrays.copyOf(elapsedNanos, count);
+            Arrays.sort(sorted);
+            return new WaitSummary(key, count, Arrays.stream(sorted).sum(), percentile(sorted, 50), percentile(sorted, 99),
+                    sorted[count - 1], limit, polls / count, timeouts);
+        }
+
+        private static long percentile(long[] sorted, int percentile) {
+            int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+            return sorted[Math.max(0, rank - 1)];
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package org.automationsuite.other;
+
+import org.automationsuite.pages.ElementHandle;
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.remote.RemoteWebElement;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Checks that waits are grouped by the locator they waited on, not by the element instance.
+ */
+public class WaitStatisticsTest {
+
+    @Test
+    public void waitsOnElementsFoundWithTheSameLocatorAreRecordedTogether() {
+        By saveButton = By.id("save");
+        // Elements returned by a script, as the in-browser waits return them, describe themselves by their identity
+        WebElement first = ElementHandle.of(scriptElement("first"), scriptElement("page"), saveButton);
+        WebElement second = ElementHandle.of(scriptElement("second"), scriptElement("page"), saveButton);
+        assertNotEquals(first.toString(), second.toString());
+
+        record("waitUntilElementIsVisible-sameLocator", first);
+        record("waitUntilElementIsVisible-sameLocator", second);
+
+        List<WaitStatistics.WaitSummary> summaries = summariesOf("waitUntilElementIsVisible-sameLocator");
+        assertEquals(1, summaries.size());
+        assertEquals(saveButton.toString(), summaries.getFirst().key().locator());
+        assertEquals(2, summaries.getFirst().count());
+    }
+
+    @Test
+    public void waitsOnElementsWithoutALocatorAreNotRecordedOnePerElement() {
+        record("waitUntilElementIsVisible-noLocator", scriptElement("first"));
+        record("waitUntilElementIsVisible-noLocator", scriptElement("second"));
+
+        assertEquals(1, summariesOf("waitUntilElementIsVisible-noLocator").size());
+    }
+
+    @Test
+    public void nestedPresenceWaitsAreRecordedByTheParentAndChildLocators() {
+        WebElement table = ElementHandle.of(scriptElement("table"), scriptElement("page"), By.id("results"));
+
+        WaitStatistics.record("waitUntilPresenceOfNestedXpathElement-nested", Timers.describe(table) + " -> " + By.xpath(".//tr"),
+                Duration.ofSeconds(45), 1_000_000, 1, false);
+
+        assertEquals(By.id("results") + " -> " + By.xpath(".//tr"),
+                summariesOf("waitUntilPresenceOfNestedXpathElement-nested").getFirst().key().locator());
+    }
+
+    private static void record(String waitName, WebElement element) {
+        WaitStatistics.record(waitName, Timers.describe(element), Duration.ofSeconds(45), 1_000_000, 1, false);
+    }
+
+    private static List<WaitStatistics.WaitSummary> summariesOf(String waitName) {
+        return WaitStatistics.summarise().stream().filter(summary -> summary.key().waitName().equals(waitName)).toList();
+    }
+
+    private static WebElement scriptElement(String id) {
+        RemoteWebElement element = new RemoteWebElement();
+        element.setId(id);
+        return element;
+    }
+}
@@ -0,0 +1,147 @@
+package org.automationsuite.pages;
+
+import org.automationsuite.ElementInformation.ElementInfoStruct;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds, fills and ticks many form elements with one script call. Values are set the way the page's framework sees
+ * typing: through the element's native value setter (which frameworks such as React track), followed by input and
+ * change events. Elements a script cannot set are reported back, for the caller to fall back to typing or clicking.
+ */
+final class BulkInteractions {
+
+    /**
+     * What happened to one element in a bulk call.
+     */
+    enum Outcome {
+        DONE,
+        // The element is not on the page (yet)
+        MISSING,
+        // The element is there but a script cannot set it, e.g. it is disabled, read only or not a form field
+        NEEDS_FALLBACK
+    }
+
+    private static final String findFunction = """
+            function find(kind, locator) {
+                switch (kind) {
+                    case 'id': return document.querySelector('#' + CSS.escape(locator));
+                    case 'class': return document.getElementsByClassName(locator)[0];
+                    case 'css': return document.querySelector(locator);
+                    case 'xpath': return document.evaluate(locator, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;
+                }
+            }
+            """;
+    private static final String fillScript = findFunction + """
+            function nativeValueSetter(element) {
+                for (var prototype = Object.getPrototypeOf(element); prototype; prototype = Object.getPrototypeOf(prototype)) {
+                    var descriptor = Object.getOwnPropertyDescriptor(prototype, 'value');
+                    if (descriptor && descriptor.set) {
+                        return descriptor.set;
+                    }
+                }
+                return null;
+            }
+            return arguments[0].map(function (field) {
+                var element = find(field[0], field[1]);
+                if (!element) {
+                    return 'MISSING';
+                }
+                var setter = nativeValueSetter(element);
+                if (!setter || element.disabled || element.readOnly || element.type === 'file') {
+                    return 'NEEDS_FALLBACK';
+                }
+                element.focus();
+                setter.call(element, field[2]);
+                element.dispatchEvent(new Event('input', {bubbles: true}));
+                element.dispatchEvent(new Event('change', {bubbles: true}));
+                element.blur();
+                return element.value === field[2] ? 'DONE' : 'NEEDS_FALLBACK';
+            });
+            """;
+    private static final String tickScript = findFunction + """
+            return arguments[0].map(function (checkbox) {
+                var element = find(checkbox[0], checkbox[1]);
+                if (!element) {
+                    return 'MISSING';
+                }
+                if (element.disabled || typeof element.checked !== 'boolean') {
+                    return 'NEEDS_FALLBACK';
+                }
+                if (element.checked !== checkbox[2]) {
+                    // A click fires the same events as a user ticking the box
+                    element.click();
+                }
+                return element.checked === checkbox[2] ? 'DONE' : 'NEEDS_FALLBACK';
+            });
+            """;
+    private static final String untickScript = """
+            var unticked = 0;
+            arguments[0].forEach(function (checkbox) {
+                if (checkbox.checked) {
+                    checkbox.click();
+                    unticked++;
+                }
+            });
+            return unticked;
+            """;
+
+    private BulkInteractions(){}
+
+    /**
+     * Sets the value of many input fields.
+     * @param driver The driver of the page.
+     * @param fields The fields.
+     * @param values The value for each field, an empty string to clear it.
+     * @return What happened to each field, in the same order.
+     */
+    static List<Outcome> fill(WebDriver driver, List<ElementInfoStruct> fields, List<String> values) {
+        List<List<Object>> arguments = new ArrayList<>(fields.size());
+        for (int i = 0; i < fields.size(); i++) {
+            arguments.add(List.of(kindOf(fields.get(i)), fields.get(i).getWaitLocator(), values.get(i)));
+        }
+        return outcomes(((JavascriptExecutor) driver).executeScript(fillScript, arguments));
+    }
+
+    /**
+     * Ticks or unticks many checkboxes.
+     * @param driver The driver of the page.
+     * @param checkboxes The checkboxes.
+     * @param ticked Whether each checkbox should end up ticked.
+     * @return What happened to each checkbox, in the same order.
+     */
+    static List<Outcome> tick(WebDriver driver, List<ElementInfoStruct> checkboxes, List<Boolean> ticked) {
+        List<List<Object>> arguments = new ArrayList<>(checkboxes.size());
+        for (int i = 0; i < checkboxes.size(); i++) {
+            arguments.add(List.of(kindOf(checkboxes.get(i)), checkboxes.get(i).getWaitLocator(), ticked.get(i)));
+        }
+        return outcomes(((JavascriptExecutor) driver).executeScript(tickScript, arguments));
+    }
+
+    /**
+     * Unticks every ticked checkbox of a list.
+     * @param driver The driver of the page.
+     * @param checkboxes The checkboxes.
+     * @return How many checkboxes were unticked.
+     */
+    static long untick(WebDriver driver, List<WebElement> checkboxes) {
+        return (Long) ((JavascriptExecutor) driver).executeScript(untickScript, checkboxes);
+    }
+
+    private static String kindOf(ElementInfoStruct element) {
+        return switch (element.getAttributeType()) {
+            case Id -> "id";
+            case xPath -> "xpath";
+            case ClassName -> "class";
+            case DataTestId -> "css";
+        };
+    }
+
+    private static List<Outcome> outcomes(Object result) {
+        return ((List<?>) result).stream().map(outcome -> Outcome.valueOf((String) outcome)).toList();
+    }
+}
@@ -0,0 +1,270 @@
+package org.automationsuite.pages;
+
+import org.automationsuite.ElementInformation.ElementAttributeTypes;
+import org.automationsuite.ElementInformation.ElementInfoStruct;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Element;
+import org.jsoup.nodes.Node;
+import org.jsoup.nodes.TextNode;
+import org.jsoup.parser.Parser;
+import org.jsoup.select.Elements;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * A copy of the page, or of part of it, read from the browser with one script call so that any number of read only
+ * checks can run against it without another call. Elements are found with the same locators as on the live page, and
+ * their text is what the user saw when the copy was taken: hidden elements have no text and CSS text transforms are
+ * applied, as with WebElement.getText(). Form fields keep the values and ticks they had, not the ones in the markup.
+ * <p>
+ * The copy does not change when the page does, so take a new one after anything that changes the page.
+ */
+public final class DomSnapshot {
+
+    private static final String hiddenAttribute = "data-snapshot-hidden";
+    private static final String textTransformAttribute = "data-snapshot-text-transform";
+    private static final Pattern whitespace = Pattern.compile("[\\s\\u00a0]+");
+    // Copies the element and marks the copy with what only the live page knows: what is hidden, how text is
+    // transformed and the current form values. The live page is not changed, so the page's own scripts see nothing
+    private static final String captureScript = """
+            var root = arguments[0] || document.documentElement;
+            var copy = root.cloneNode(true);
+            var originals = [root].concat(Array.prototype.slice.call(root.querySelectorAll('*')));
+            var copies = [copy].concat(Array.prototype.slice.call(copy.querySelectorAll('*')));
+            for (var i = 0; i < originals.length; i++) {
+                var original = originals[i], element = copies[i];
+                var style = getComputedStyle(original);
+                if (style.display === 'none' || style.visibility === 'hidden'
+                        || (style.display !== 'contents' && original.getClientRects().length === 0)) {
+                    element.setAttribute('%s', '');
+                }
+                if (style.textTransform === 'uppercase' || style.textTransform === 'lowercase' || style.textTransform === 'capitalize') {
+                    element.setAttribute('%s', style.textTransform);
+                }
+                if (original.tagName === 'INPUT' || original.tagName === 'TEXTAREA' || original.tagName === 'SELECT') {
+                    element.setAttribute('value', original.value);
+                }
+                if (original.tagName === 'INPUT') {
+                    original.checked ? element.setAttribute('checked', '') : element.removeAttribute('checked');
+                }
+                if (original.tagName === 'OPTION') {
+                    original.selected ? element.setAttribute('selected', '') : element.removeAttribute('selected');
+                }
+            }
+            return [location.href, root.parentElement ? root.parentElement.tagName.toLowerCase() : null, copy.outerHTML];
+            """.formatted(hiddenAttribute, textTransformAttribute);
+
+    private final String url;
+    private final Element root;
+
+    private DomSnapshot(String url, Element root) {
+        this.url = url;
+        this.root = root;
+    }
+
+    /**
+     * Copies an element, or the whole page, from the browser.
+     * @param driver The driver of the page.
+     * @param element The element to copy with everything in it, null for the whole page.
+     * @return The snapshot.
+     */
+    static DomSnapshot capture(WebDriver driver, WebElement element) {
+        List<?> result = (List<?>) ((JavascriptExecutor) driver).executeScript(captureScript, element);
+        String url = (String) result.get(0);
+        String parentTag = (String) result.get(1);
+        String html = (String) result.get(2);
+        if (parentTag == null) {
+            return new DomSnapshot(url, Jsoup.parse(html, url));
+        }
+        // Parsed in the context of its parent, so e.g. a table row is not dropped for being outside a table
+        List<Node> nodes = Parser.parseFragment(html, new Element(parentTag), url);
+        Element copied = nodes.stream().filter(Element.class::isInstance).map(Element.class::cast).findFirst()
+                .orElseThrow(() -> new IllegalStateException("The snapshot of the element could not be read"));
+        return new DomSnapshot(url, copied);
+    }
+
+    /**
+     * @return The url of the page the snapshot was taken from.
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @param attributeType The attribute type to reference.
+     * @param locator The attribute value to reference.
+     * @return True if the page had an element matching the locator.
+     */
+    public boolean exists(ElementAttributeTypes attributeType, String locator) {
+        return !findAll(attributeType, locator).isEmpty();
+    }
+
+    /**
+     * @param attributeType The attribute type to reference.
+     * @param locator The attribute value to reference.
+     * @return How many elements matched the locator.
+     */
+    public int count(ElementAttributeTypes attributeType, String locator) {
+        return findAll(attributeType, locator).size();
+    }
+
+    /**
+     * Returns the text the user saw in the first element matching a locator, like WebElement.getText().
+     * @param attributeType The attribute type to reference.
+     * @param locator The attribute value to reference.
+     * @return The text, empty if the element was hidden.
+     * @throws NoSuchElementException If no element matched the locator.
+     */
+    public String text(ElementAttributeTypes attributeType, String locator) {
+        return renderedText(find(attributeType, locator));
+    }
+
+    /**
+     * @param attributeType The attribute type to reference.
+     * @param locator The attribute value to reference.
+     * @return The text the user saw in every element matching the locator, in page order.
+     */
+    public List<String> texts(ElementAttributeTypes attributeType, String locator) {
+        return findAll(attributeType, locator).stream().map(DomSnapshot::renderedText).toList();
+    }
+
+    /**
+     * Returns an attribute of the first element matching a locator. Input fields, text areas and selects have the
+     * value they had at the time as their value attribute.
+     * @param attributeType The attribute type to reference.
+     * @param locator The attribute value to reference.
+     * @param attribute The name of the attribute.
+     * @return The value of the attribute, or null if the element does not have it.
+     * @throws NoSuchElementException If no element matched the locator.
+     */
+    public String attribute(ElementAttributeTypes attributeType, String locator, String attribute) {
+        Element element = find(attributeType, locator);
+        return element.hasAttr(attribute) ? element.attr(attribute) : null;
+    }
+
+    /**
+     * @param attributeType The attribute type to reference.
+     * @param locator The attribute value to reference.
+     * @return True if the first element matching the locator was displayed.
+     * @throws NoSuchElementException If no element matched the locator.
+     */
+    public boolean isDisplayed(ElementAttributeTypes attributeType, String locator) {
+        return !find(attributeType, locator).hasAttr(hiddenAttribute);
+    }
+
+    /**
+     * @param attributeType The attribute type to reference.
+     * @param locator The attribute value to reference.
+     * @return True if the first element matching the locator was a ticked checkbox or radio button, or a selected option.
+     * @throws NoSuchElementException If no element matched the locator.
+     */
+    public boolean isSelected(ElementAttributeTypes attributeType, String locator) {
+        Element element = find(attributeType, locator);
+        return element.hasAttr("checked") || element.hasAttr("selected");
+    }
+
+    /**
+     * @return The markup of the snapshot.
+     */
+    public String html() {
+        return root.outerHtml();
+    }
+
+    /**
+     * Saves the snapshot as an HTML file, e.g. to look at after a scenario failed.
+     * @param file The file to write, its directory is created if needed.
+     */
+    public void save(Path file) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            Files.writeString(file, "<!-- Snapshot of " + url + " -->\n" + html(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not save the DOM snapshot to " + file, e);
+        }
+    }
+
+    private Element find(ElementAttributeTypes attributeType, String locator) {
+        Elements found = findAll(attributeType, locator);
+        if (found.isEmpty()) {
+            throw new NoSuchElementException("No element in the snapshot of " + url + " matches " + attributeType + " " + locator);
+        }
+        return found.first();
+    }
+
+    private Elements findAll(ElementAttributeTypes attributeType, String locator) {
+        ElementInfoStruct element = ElementInfoStruct.of(attributeType, locator);
+        return switch (attributeType) {
+            case Id -> root.getElementsByAttributeValue("id", locator);
+            case ClassName -> root.getElementsByClass(locator);
+            case DataTestId -> root.select(element.getWaitLocator());
+            case xPath -> root.selectXpath(locator);
+        };
+    }
+
+    private static String renderedText(Element element) {
+        StringBuilder text = new StringBuilder();
+        appendText(element, text);
+        List<String> lines = new ArrayList<>();
+        for (String line : text.toString().split("\n")) {
+            String collapsed = whitespace.matcher(line).replaceAll(" ").strip();
+            if (!collapsed.isEmpty()) {
+                lines.add(collapsed);
+            }
+        }
+        return String.join("\n", lines);
+    }
+
+    // Text of hidden elements is left out, while their visible children still count, as in the browser
+    private static void appendText(Element element, StringBuilder text) {
+        for (Node child : element.childNodes()) {
+            if (child instanceof TextNode textNode) {
+                if (!element.hasAttr(hiddenAttribute)) {
+                    text.append(transform(textNode.getWholeText(), element.attr(textTransformAttribute)));
+                }
+            } else if (child instanceof Element childElement) {
+                if (childElement.normalName().equals("br")) {
+                    text.append('\n');
+                } else if (childElement.isBlock()) {
+                    text.append('\n');
+                    appendText(childElement, text);
+                    text.append('\n');
+                } else {
+                    appendText(childElement, text);
+                }
+            }
+        }
+    }
+
+    private static String transform(String text, String textTransform) {
+        return switch (textTransform) {
+            case "uppercase" -> text.toUpperCase(Locale.ROOT);
+            case "lowercase" -> text.toLowerCase(Locale.ROOT);
+            case "capitalize" -> capitalise(text);
+            default -> text;
+        };
+    }
+
+    private static String capitalise(String text) {
+        StringBuilder capitalised = new StringBuilder(text.length());
+        boolean wordStart = true;
+        for (char character : text.toCharArray()) {
+            capitalised.append(wordStart ? Character.toUpperCase(character) : character);
+            wordStart = Character.isWhitespace(character);
+        }
+        return capitalised.toString();
+    }
+}
@@ -1,15 +1,26 @@
 package org.automationsuite.pages;
 
 import org.automationsuite.ElementInformation.ElementAttributeTypes;
-import org.automationsuite.config.WebDriverDefinition;
+import org.automationsuite.ElementInformation.ElementInfoStruct;
+import org.automationsuite.config.BrowserProfile;
+import org.automationsuite.config.DriverPool;
 import org.openqa.selenium.*;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
 
 public class DriverPage extends BasePage{
 
-    private WebDriver driver;
+    // Volatile so the launcher's watchdog can quit a hung scenario's driver from another thread
+    private volatile WebDriver driver;
+    // False when the driver must not be handed to another scenario once this one has finished
+    private volatile boolean reusable;
+    private Duration driverWaitTime = Duration.ZERO;
+    private BrowserProfile browserProfile = BrowserProfile.selected();
+    // Only used by the scenario's own thread, never by the watchdog
+    private final ElementCache elementCache = new ElementCache();
 
     /**
      * Getter for driver instance
@@ -20,26 +31,67 @@ public class DriverPage extends BasePage{
     }
 
     /**
-     * Shut down the driver and clean up
+     * Shut down the driver and clean up. Safe to call from another thread while a scenario is still using the driver.
      */
     public void driverShutdown() {
-        if (driver != null) {
-            driver.quit();
-            driver = null;
+        WebDriver activeDriver = takeDriver();
+        if (activeDriver != null) {
+            DriverPool.release(activeDriver, false);
+        }
+    }
+
+    /**
+     * Hand the driver back at the end of a scenario. When driver pooling is on it is reset and kept for the next
+     * scenario, otherwise it is shut down.
+     * @param scenarioPassed False to shut the driver down anyway, as a failed scenario may have left it in a bad state.
+     */
+    public void releaseDriver(boolean scenarioPassed) {
+        WebDriver activeDriver = takeDriver();
+        if (activeDriver != null) {
+            DriverPool.release(activeDriver, reusable && scenarioPassed);
         }
     }
 
     /**
-     * Create a Chrome web browser for each scenario to be run on
+     * Create a Chrome web browser for each scenario to be run on, reusing a pooled one when driver pooling is on
      */
     public void createWebBrowser() {
+        createWebBrowser(false, BrowserProfile.selected());
+    }
+
+    /**
+     * Create a Chrome web browser for the scenario to be run on
+     * @param freshBrowser True to always get a browser no other scenario has used and never hand it to another
+     *                     scenario afterwards.
+     * @param profile The browser profile to configure the browser with.
+     */
+    public void createWebBrowser(boolean freshBrowser, BrowserProfile profile) {
         if (driver == null) {
-            driver = WebDriverDefinition.WEBKIT.createDriver();
-            driver.manage().window().setSize(new Dimension(1920, 1080));
-            driver.manage().window().maximize();
-            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(5));
+            long startTime = System.nanoTime();
+            reusable = !freshBrowser;
+            browserProfile = profile;
+            driver = DriverPool.acquire(freshBrowser, profile);
+            elementCache.invalidate();
+            driverWaitTime = Duration.ofNanos(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * Getter for how long the current scenario waited for its driver
+     * @return The wait, zero if the scenario has no driver yet
+     */
+    public Duration getDriverWaitTime() {
+        return driverWaitTime;
+    }
+
+    private WebDriver takeDriver() {
+        synchronized (this) {
+            WebDriver activeDriver = driver;
+            driver = null;
+            return activeDriver;
         }
     }
+
     /**
      * Navigates to an application's environment URL if stored in the solution.
      * This also waits for the page state to return ready.
@@ -58,8 +110,11 @@ public class DriverPage extends BasePage{
      */
 
     public void navigateToProvidedUrl(String url){
+        long startTime = System.nanoTime();
+        elementCache.invalidate();
         driver.get(url);
         pageIndex().getTimers().waitUntilPageIsReady();
+        browserProfile.recordPageLoad(Duration.ofNanos(System.nanoTime() - startTime));
     }
 
     /**
@@ -75,6 +130,7 @@ public class DriverPage extends BasePage{
      *
      */
     public void createAndSwitchToNewTab() {
+        elementCache.invalidate();
         driver.switchTo().newWindow(WindowType.TAB);
     }
 
@@ -91,17 +147,24 @@ public class DriverPage extends BasePage{
             tabs.clear();
             tabs = getCurrentTabs();
         }
+        elementCache.invalidate();
         driver.switchTo().window(tabs.get(tabNumber - 1));
     }
 
     public void closeCurrentTabAndGoToFirstOpenTab(){
         ArrayList<String> tabs = getCurrentTabs();
+        elementCache.invalidate();
         driver.close();
         if(!tabs.isEmpty()) {
             driver.switchTo().window(tabs.getFirst());
         }
     }
 
+    // Every element the find methods return is an ElementHandle. A single element is found again with the same locator
+    // and the call retried once if the page re-rendered it, an element of a list is not, as its position may have
+    // changed. With ELEMENT_CACHE on, single elements are kept until the scenario changes the page, so finding one
+    // again returns the same handle without a call to the browser
+
     /**
      * Find and return a single element.
      * @param attributeType The attribute type to reference.
@@ -111,35 +174,22 @@ public class DriverPage extends BasePage{
      * @return A WebElement reference to an element.
      */
     public WebElement findWaitAndGetSingularElement(ElementAttributeTypes attributeType, String locator, boolean requireWait){
-        final String cssLocator;
-        switch (attributeType){
-            case Id -> {
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfIdElementIsLocated(locator);
-                }
-                return driver.findElement(By.id(locator));
-            }
-            case xPath -> {
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfXpathElementIsLocated(locator);
-                }
-                return driver.findElement(By.xpath(locator));
-            }
-            case ClassName -> {
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfClassElementIsLocated(locator);
-                }
-                return driver.findElement(By.className(locator));
-            }
-            case DataTestId -> {
-                cssLocator = "[data-testid='" + locator + "']";
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfCustomAttributeElementIsLocated(cssLocator);
-                }
-                return driver.findElement(By.cssSelector(cssLocator));
-            }
-        }
-        return null;
+        return findWaitAndGetSingularElement(ElementInfoStruct.of(attributeType, locator), requireWait);
+    }
+
+    /**
+     * Find and return a single element. When waiting, the element the wait found is returned rather than searched for
+     * again.
+     * @param element The element information, e.g. from the locator files.
+     * @param requireWait Are you expecting the presence of the element? Should be set to true 99% of the time unless you're
+     *                    not always expecting the element to be appearing.
+     * @return A WebElement reference to an element.
+     */
+    public WebElement findWaitAndGetSingularElement(ElementInfoStruct element, boolean requireWait){
+        // A wait finds a re-rendered element again through the same wait, so it gets as long to come back as it first had
+        Supplier<WebElement> finder = requireWait
+                ? () -> pageIndex().getTimers().waitUntilPresenceOfElementIsLocated(element, null) : () -> driver.findElement(element.getBy());
+        return elementCache.get(element.getBy(), null, () -> ElementHandle.of(finder.get(), element.getBy(), finder, elementCache::invalidate));
     }
 
     /**
@@ -151,35 +201,21 @@ public class DriverPage extends BasePage{
      * @return A list of WebElement reference for multiple elements.
      */
     public List<WebElement> findWaitAndGetMultipleElements(ElementAttributeTypes attributeType, String locator, boolean requireWait){
-        final String cssLocator;
-        switch (attributeType) {
-            case Id -> {
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfIdElementIsLocated(locator);
-                }
-                return driver.findElements(By.id(locator));
-            }
-            case xPath -> {
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfXpathElementIsLocated(locator);
-                }
-                return driver.findElements(By.xpath(locator));
-            }
-            case ClassName -> {
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfClassElementIsLocated(locator);
-                }
-                return driver.findElements(By.className(locator));
-            }
-            case DataTestId -> {
-                cssLocator = "[data-testid='" + locator + "']";
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfCustomAttributeElementIsLocated(cssLocator);
-                }
-                return driver.findElements(By.cssSelector(cssLocator));
-            }
-        }
-        return null;
+        return findWaitAndGetMultipleElements(ElementInfoStruct.of(attributeType, locator), requireWait);
+    }
+
+    /**
+     * Find and return a list of elements. When waiting, the elements the wait found are returned rather than searched
+     * for again.
+     * @param element The element information, e.g. from the locator files.
+     * @param requireWait Are you expecting the presence of the element? Should be set to true 99% of the time unless you're
+     *                    not always expecting the element to be appearing.
+     * @return A list of WebElement reference for multiple elements.
+     */
+    public List<WebElement> findWaitAndGetMultipleElements(ElementInfoStruct element, boolean requireWait){
+        List<WebElement> found = requireWait
+                ? pageIndex().getTimers().waitUntilPresenceOfAllElementsAreLocated(element, null) : driver.findElements(element.getBy());
+        return ElementHandle.ofAll(found, element.getBy(), elementCache::invalidate);
     }
 
     /**
@@ -189,39 +225,14 @@ public class DriverPage extends BasePage{
      * @param locator The attribute value to reference.
      * @param requireWait Are you expecting the presence of the element? Should be set to true 99% of the time unless you're
      *                    not always expecting the element to be appearing.
-     * @return A list of WebElement reference for multiple elements.
+     * @return A WebElement reference to an element.
      */
     public WebElement findWaitAndGetSingularElementFromParent(WebElement parentElement, ElementAttributeTypes attributeType, String locator, boolean requireWait){
-        final String cssLocator;
         pageIndex().getAssertions().notNullAssertion(parentElement);
-        switch(attributeType){
-            case Id -> {
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfNestedIdElement(parentElement, locator);
-                }
-                return parentElement.findElement(By.id(locator));
-            }
-            case xPath -> {
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfNestedXpathElement(parentElement, locator);
-                }
-                return parentElement.findElement(By.xpath(locator));
-            }
-            case ClassName -> {
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfNestedClassElement(parentElement, locator);
-                }
-                return parentElement.findElement(By.className(locator));
-            }
-            case DataTestId -> {
-                cssLocator = "[data-testid='" + locator + "']";
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfNestedCustomAttributeElement(parentElement, cssLocator);
-                }
-                return parentElement.findElement(By.cssSelector(cssLocator));
-            }
-        }
-        return null;
+        ElementInfoStruct element = ElementInfoStruct.of(attributeType, locator);
+        Supplier<WebElement> finder = requireWait
+                ? () -> pageIndex().getTimers().waitUntilPresenceOfElementIsLocated(element, parentElement) : () -> parentElement.findElement(element.getBy());
+        return elementCache.get(element.getBy(), parentElement, () -> ElementHandle.of(finder.get(), element.getBy(), finder, elementCache::invalidate));
     }
 
     /**
@@ -234,44 +245,71 @@ public class DriverPage extends BasePage{
      * @return A list of WebElement reference for multiple elements.
      */
     public List<WebElement> findWaitAndGetMultipleElementsFromParent(WebElement parentElement, ElementAttributeTypes attributeType, String locator, boolean requireWait){
-        final String cssLocator;
         pageIndex().getAssertions().notNullAssertion(parentElement);
-        switch(attributeType){
-            case Id -> {
-                pageIndex().getTimers().waitUntilPresenceOfNestedIdElement(parentElement, locator);
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfNestedIdElement(parentElement, locator);
-                }
-                return parentElement.findElements(By.id(locator));
-            }
-            case xPath -> {
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfNestedXpathElement(parentElement, locator);
-                }
-                return parentElement.findElements(By.xpath(locator));
-            }
-            case ClassName -> {
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfNestedClassElement(parentElement, locator);
-                }
-                return parentElement.findElements(By.className(locator));
-            }
-            case DataTestId -> {
-                cssLocator = "[data-testid='" + locator + "']";
-                if(requireWait) {
-                    pageIndex().getTimers().waitUntilPresenceOfNestedCustomAttributeElement(parentElement, cssLocator);
-                }
-                return parentElement.findElements(By.cssSelector(cssLocator));
-            }
-        }
-        return null;
+        ElementInfoStruct element = ElementInfoStruct.of(attributeType, locator);
+        List<WebElement> found = requireWait
+                ? pageIndex().getTimers().waitUntilPresenceOfAllElementsAreLocated(element, parentElement) : parentElement.findElements(element.getBy());
+        return ElementHandle.ofAll(found, element.getBy(), elementCache::invalidate);
+    }
+
+    /**
+     * Find an element that may not be on the page, without waiting for it.
+     * @param attributeType The attribute type to reference.
+     * @param locator The attribute value to reference.
+     * @return The element, or empty if it is not on the page.
+     */
+    public Optional<WebElement> findOptionalElement(ElementAttributeTypes attributeType, String locator){
+        return findOptionalElement(attributeType, locator, Duration.ZERO);
+    }
+
+    /**
+     * Find an element that may not be on the page, waiting for it no longer than a short time limit.
+     * @param attributeType The attribute type to reference.
+     * @param locator The attribute value to reference.
+     * @param timeout How long to look for the element, zero to look once.
+     * @return The element, or empty if it did not appear within the time limit.
+     */
+    public Optional<WebElement> findOptionalElement(ElementAttributeTypes attributeType, String locator, Duration timeout){
+        ElementInfoStruct element = ElementInfoStruct.of(attributeType, locator);
+        return pageIndex().getTimers().waitForOptionalElement(element, null, timeout)
+                .map(found -> ElementHandle.of(found, element.getBy(), () -> driver.findElement(element.getBy()), elementCache::invalidate));
+    }
+
+    /**
+     * Forgets the elements found so far, for steps that change the page other than through an element found here,
+     * e.g. a click through a script or through Selenium's Actions. Only needed with ELEMENT_CACHE on.
+     */
+    public void invalidateElementCache(){
+        elementCache.invalidate();
+    }
+
+    /**
+     * Copies the whole page in one call, for read only checks that would otherwise each be a call to the browser.
+     * @return The snapshot of the page as it is now.
+     */
+    public DomSnapshot takeDomSnapshot(){
+        return DomSnapshot.capture(driver, null);
+    }
+
+    /**
+     * Copies an element and everything in it in one call, for read only checks that would otherwise each be a call to
+     * the browser.
+     * @param element The WebElement reference to the element to copy.
+     * @return The snapshot of the element as it is now.
+     */
+    public DomSnapshot takeDomSnapshot(WebElement element){
+        pageIndex().getAssertions().notNullAssertion(element);
+        return DomSnapshot.capture(driver, element);
     }
 
     /**
      * @param URL: webpage url to be navigated too
      */
     public void navigateToURL(String URL) {
+        long startTime = System.nanoTime();
+        elementCache.invalidate();
         driver.get(URL);  // Uses the driver instance for this thread
+        browserProfile.recordPageLoad(Duration.ofNanos(System.nanoTime() - startTime));
     }
 
 }
@@ -0,0 +1,89 @@
+package org.automationsuite.pages;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * The elements a scenario has already found on the current page, so finding the same header, navigation or form
+ * element again needs no call to the browser at all. Each scenario thread has its own cache, through its DriverPage.
+ * <p>
+ * Nothing is checked with the browser when a cached element is returned, as that check would cost the same call the
+ * cache saves. Instead the cache is cleared by everything through which a scenario changes the page: navigating and
+ * switching tab through DriverPage, and clicking, submitting or typing into an element found through DriverPage.
+ * Anything else that changes the page, e.g. a script click, has to clear it through DriverPage. Every cached element is
+ * an ElementHandle, so one the page replaced in the meantime is found again through the wait it was first found with.
+ */
+@Slf4j
+public final class ElementCache {
+
+    private static final boolean enabled = Boolean.parseBoolean(System.getProperty("ELEMENT_CACHE", "false"));
+    // Each lookup answered from the cache is a call to the browser that was not made
+    private static final LongAdder callsSaved = new LongAdder();
+    private static final LongAdder lookups = new LongAdder();
+    private static final LongAdder invalidations = new LongAdder();
+
+    private final Map<Key, WebElement> elements = new HashMap<>();
+
+    // The parent is compared by identity, a cached parent is the same handle every time it is looked up
+    private record Key(By by, WebElement parent) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key key && by.equals(key.by) && parent == key.parent;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * by.hashCode() + System.identityHashCode(parent);
+        }
+    }
+
+    /**
+     * Returns the cached element for a locator, or looks it up and caches it.
+     * @param by The locator of the element.
+     * @param parent The parent element it is found from, null for the page.
+     * @param lookup Finds the element, waiting for it if the caller asked to, and returns it as an ElementHandle.
+     * @return The element.
+     */
+    WebElement get(By by, WebElement parent, Supplier<WebElement> lookup) {
+        if (!enabled) {
+            return lookup.get();
+        }
+        Key key = new Key(by, parent);
+        WebElement cached = elements.get(key);
+        if (cached != null) {
+            callsSaved.increment();
+            return cached;
+        }
+        lookups.increment();
+        WebElement found = lookup.get();
+        elements.put(key, found);
+        return found;
+    }
+
+    /**
+     * Forgets every cached element, e.g. because the page changed.
+     */
+    void invalidate() {
+        if (!elements.isEmpty()) {
+            invalidations.increment();
+            elements.clear();
+        }
+    }
+
+    /**
+     * Logs how many calls to the browser the cache saved during the run, when the cache is on.
+     */
+    public static void logStatistics() {
+        if (enabled) {
+            log.info("Element cache: {} browser calls saved, {} lookups went to the browser, cleared {} times. "
+                            + "Cached elements found again after going stale are counted with the other stale elements",
+                    callsSaved.sum(), lookups.sum(), invalidations.sum());
+        }
+    }
+}
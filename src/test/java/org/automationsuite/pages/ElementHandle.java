@@ -0,0 +1,204 @@
+package org.automationsuite.pages;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.By;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.WrapsElement;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * An element that remembers how it was found. When a call fails because the page re-rendered the element, the element
+ * is found again with the same locator, from the same parent, and the call is retried once. Elements found from a
+ * handle are handles too, so a whole chain of parents is found again when it needs to be.
+ * <p>
+ * An element found as one of a list is never found again: after rows are added, removed or reordered its position
+ * could point at a different element, so its StaleElementReferenceException is passed on instead.
+ * <p>
+ * A handle can be told what to do before a call that may change the page (a click, a submit or typing), e.g. to clear
+ * the scenario's element cache. Elements found from the handle are told the same.
+ */
+@Slf4j
+public final class ElementHandle implements InvocationHandler {
+
+    private static final LongAdder reResolved = new LongAdder();
+
+    private final By by;
+    // Finds the element again, null for an element found as one of a list, which cannot safely be found again
+    private final Supplier<WebElement> finder;
+    // Run before a call that may change the page, null for nothing
+    private final Runnable beforePageChange;
+    private volatile WebElement element;
+
+    private ElementHandle(WebElement element, By by, Supplier<WebElement> finder, Runnable beforePageChange) {
+        this.element = element;
+        this.by = by;
+        this.finder = finder;
+        this.beforePageChange = beforePageChange;
+    }
+
+    /**
+     * Wraps an element so it is found again when it goes stale.
+     * @param element The element.
+     * @param searchContext The driver or parent element it was found from.
+     * @param by The locator it was found with.
+     * @return The element handle.
+     */
+    public static WebElement of(WebElement element, SearchContext searchContext, By by) {
+        return of(element, by, () -> searchContext.findElement(by), null);
+    }
+
+    /**
+     * Wraps an element so it is found again in a given way when it goes stale, e.g. through the same wait it was first
+     * found with.
+     * @param element The element.
+     * @param by The locator it was found with.
+     * @param finder Finds the element again.
+     * @param beforePageChange Run before a call on the element, or on an element found from it, that may change the
+     *                         page. Null for nothing.
+     * @return The element handle.
+     */
+    static WebElement of(WebElement element, By by, Supplier<WebElement> finder, Runnable beforePageChange) {
+        return proxy(new ElementHandle(element, by, finder, beforePageChange));
+    }
+
+    /**
+     * Wraps a list of elements. They are not found again when they go stale, but elements found from them are.
+     * @param elements The elements.
+     * @param by The locator they were found with.
+     * @param beforePageChange Run before a call on one of the elements, or on an element found from one, that may
+     *                         change the page. Null for nothing.
+     * @return The element handles.
+     */
+    static List<WebElement> ofAll(List<WebElement> elements, By by, Runnable beforePageChange) {
+        List<WebElement> handles = new ArrayList<>(elements.size());
+        for (WebElement element : elements) {
+            handles.add(proxy(new ElementHandle(element, by, null, beforePageChange)));
+        }
+        return handles;
+    }
+
+    /**
+     * Returns the element a handle currently points at, for code that has to see the element go stale, e.g. a wait
+     * for staleness.
+     * @param element An element, which may or may not be a handle.
+     * @return The element the handle points at, or the element itself if it is not a handle.
+     */
+    public static WebElement unwrap(WebElement element) {
+        if (element != null && Proxy.isProxyClass(element.getClass()) && Proxy.getInvocationHandler(element) instanceof ElementHandle handle) {
+            return handle.element;
+        }
+        return element;
+    }
+
+    /**
+     * Returns the locator a handle was found with, e.g. to group the waits on elements found the same way.
+     * @param element An element, which may or may not be a handle.
+     * @return The locator, or empty if the element is not a handle.
+     */
+    public static Optional<By> locatorOf(WebElement element) {
+        if (element != null && Proxy.isProxyClass(element.getClass()) && Proxy.getInvocationHandler(element) instanceof ElementHandle handle) {
+            return Optional.of(handle.by);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Logs how many elements were found again after going stale during the run.
+     */
+    public static void logReResolvedElements() {
+        log.info("Stale elements found again: {}", reResolved.sum());
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        return switch (method.getName()) {
+            case "getWrappedElement" -> element;
+            case "equals" -> args[0] instanceof WebElement other && innermost(element).equals(innermost(other));
+            case "hashCode" -> innermost(element).hashCode();
+            case "toString" -> element.toString();
+            case "findElement" -> {
+                By childBy = (By) args[0];
+                yield of((WebElement) call(method, args), childBy, () -> ((SearchContext) proxy).findElement(childBy), beforePageChange);
+            }
+            case "findElements" -> {
+                @SuppressWarnings("unchecked")
+                List<WebElement> found = (List<WebElement>) call(method, args);
+                yield ofAll(found, (By) args[0], beforePageChange);
+            }
+            case "click", "submit", "sendKeys" -> {
+                if (beforePageChange != null) {
+                    beforePageChange.run();
+                }
+                yield call(method, args);
+            }
+            default -> call(method, args);
+        };
+    }
+
+    private Object call(Method method, Object[] args) throws Throwable {
+        try {
+            return invoke(element, method, args);
+        } catch (StaleElementReferenceException e) {
+            return invoke(resolve(e), method, args);
+        }
+    }
+
+    private WebElement resolve(StaleElementReferenceException stale) {
+        if (finder == null) {
+            throw stale;
+        }
+        WebElement found;
+        try {
+            found = finder.get();
+        } catch (NotFoundException | StaleElementReferenceException | TimeoutException e) {
+            if (e != stale) {
+                stale.addSuppressed(e);
+            }
+            throw stale;
+        }
+        element = found;
+        reResolved.increment();
+        log.debug("Element {} went stale and was found again", by);
+        return found;
+    }
+
+    private static Object invoke(WebElement target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static WebElement innermost(WebElement element) {
+        WebElement current = element;
+        while (current instanceof WrapsElement wrapper) {
+            current = wrapper.getWrappedElement();
+        }
+        return current;
+    }
+
+    private static WebElement proxy(ElementHandle handle) {
+        Set<Class<?>> interfaces = new LinkedHashSet<>();
+        for (Class<?> type = handle.element.getClass(); type != null; type = type.getSuperclass()) {
+            interfaces.addAll(List.of(type.getInterfaces()));
+        }
+        interfaces.add(WrapsElement.class);
+        return (WebElement) Proxy.newProxyInstance(ElementHandle.class.getClassLoader(), interfaces.toArray(Class<?>[]::new), handle);
+    }
+}
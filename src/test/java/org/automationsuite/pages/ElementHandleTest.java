@@ -0,0 +1,53 @@
+package org.automationsuite.pages;
+
+import org.junit.Test;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebElement;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks that element handles say when a call on them may change the page, which is what clears the element cache.
+ */
+public class ElementHandleTest {
+
+    private final List<String> calls = new ArrayList<>();
+
+    @Test
+    public void callsThatMayChangeThePageAreAnnouncedBeforeTheyRun() {
+        WebElement button = ElementHandle.of(element("button"), By.id("save"), () -> element("button"), () -> calls.add("page change"));
+
+        button.getText();
+        button.click();
+
+        assertEquals(List.of("button.getText", "page change", "button.click"), calls);
+    }
+
+    @Test
+    public void elementsFoundFromAHandleAnnounceThemToo() {
+        WebElement form = ElementHandle.of(element("form"), By.id("form"), () -> element("form"), () -> calls.add("page change"));
+
+        form.findElement(By.name("email")).sendKeys("someone@example.com");
+        form.findElements(By.tagName("button")).getFirst().submit();
+
+        assertEquals(List.of("form.findElement", "page change", "child.sendKeys", "form.findElements", "page change", "child.submit"), calls);
+    }
+
+    // An element that records the calls made on it, every element found from it is called child
+    private WebElement element(String name) {
+        return (WebElement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{WebElement.class},
+                (proxy, method, args) -> {
+                    calls.add(name + "." + method.getName());
+                    return switch (method.getName()) {
+                        case "findElement" -> element("child");
+                        case "findElements" -> List.of(element("child"));
+                        case "getText" -> "";
+                        default -> null;
+                    };
+                });
+    }
+}
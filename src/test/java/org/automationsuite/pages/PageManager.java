@@ -4,16 +4,20 @@ import lombok.Getter;
 import org.automationsuite.other.Assertions;
 import org.automationsuite.other.Timers;
 import org.automationsuite.variables.Buttons;
+import org.automationsuite.variables.Checkboxes;
 import org.automationsuite.variables.InputFields;
 
 @Getter
 public class PageManager {
 
+    // One instance per thread running a scenario, removed by cleanup() at the end of every scenario so a pooled
+    // thread never carries a driver into its next scenario
     private static final ThreadLocal<PageManager> instance = ThreadLocal.withInitial(PageManager::new);
 
     // Pages
     private final DriverPage driverPage = new DriverPage();
     private final SharedFunctionalityPage sharedFunctionality = new SharedFunctionalityPage();
+    private final TablePage tablePage = new TablePage();
 
     // Utils
     private final Timers timers = new Timers();
@@ -22,6 +26,7 @@ public class PageManager {
     // Variables
     private final Buttons buttons = new Buttons();
     private final InputFields inputFields = new InputFields();
+    private final Checkboxes checkboxes = new Checkboxes();
 
     /**
      * Class Constructor
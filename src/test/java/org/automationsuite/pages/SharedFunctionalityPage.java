@@ -9,7 +9,10 @@ import org.openqa.selenium.interactions.Actions;
 import org.openqa.selenium.support.ui.Select;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -17,8 +20,11 @@ import static org.junit.Assert.*;
 public class SharedFunctionalityPage extends BasePage {
 
     public void testBBCHeader(){
-        WebElement header = webDriver().getWebDriver().findElement(By.xpath("//*[@id=\"header-content\"]/div/div"));
-        assertEquals("MADE TO FAIL", header.getText());
+        String header = "//*[@id=\"header-content\"]/div/div";
+        // The snapshot is only taken once the header is on the page, as a snapshot does not wait
+        webDriver().findWaitAndGetSingularElement(ElementAttributeTypes.xPath, header, true);
+        DomSnapshot page = webDriver().takeDomSnapshot();
+        assertEquals("MADE TO FAIL", page.text(ElementAttributeTypes.xPath, header));
     }
 
     /**
@@ -54,6 +60,7 @@ public class SharedFunctionalityPage extends BasePage {
         JavascriptExecutor js = (JavascriptExecutor) webDriver().getWebDriver();
 
         scrollIntoView(elementToClick);
+        webDriver().invalidateElementCache();
         js.executeScript("arguments[0].click();", elementToClick);
     }
 
@@ -73,6 +80,7 @@ public class SharedFunctionalityPage extends BasePage {
                 .moveToElement(element)
                 .click()
                 .build();
+        webDriver().invalidateElementCache();
         clickNonButtonElement.perform();
     }
 
@@ -83,7 +91,7 @@ public class SharedFunctionalityPage extends BasePage {
      * @return Returns a struct with button information.
      */
     private ElementInfoStruct findButton(String buttonName){
-        return pageIndex().getButtons().findAndReturnButtonForApplication(buttonName.toLowerCase());
+        return pageIndex().getButtons().findAndReturnButtonForApplication(buttonName);
     }
 
     /**
@@ -92,8 +100,7 @@ public class SharedFunctionalityPage extends BasePage {
      */
     public void findAndClickButton(String buttonName){
         ElementInfoStruct buttonInformation = findButton(buttonName);
-        WebElement button = webDriver().findWaitAndGetSingularElement(
-                buttonInformation.getAttributeType(), buttonInformation.getAttributeValue(), true);
+        WebElement button = webDriver().findWaitAndGetSingularElement(buttonInformation, true);
         clickObtainedButton(button);
     }
 
@@ -107,33 +114,55 @@ public class SharedFunctionalityPage extends BasePage {
         scrollIntoView(button);
         pageIndex().getTimers().waitUntilElementIsVisible(button);
         pageIndex().getTimers().waitUntilElementIsClickable(button);
-
-        try{
-            button.click();
-        } catch (StaleElementReferenceException ex){
-            System.out.println("Inside clickObtainedButton stale element");
-        }
+        // A button found through DriverPage is found again if the page re-rendered it
+        button.click();
     }
 
 /*************** Checkboxes functionality *****************************************************************************/
     /**
      * find the checkboxes and click on the one specified in the feature file
-     * @param dataTable A datatable containing what options to select for each checkbox
+     * @param dataTable A datatable with the user facing label of each checkbox in the first column, and true, ticked or
+     *                  checked in the second for the checkboxes to tick. The rest are unticked.
      */
-    public void findAndSelectTheSpecifiedCheckboxOption(DataTable dataTable){}
+    public void findAndSelectTheSpecifiedCheckboxOption(DataTable dataTable){
+        Map<String, Boolean> checkboxes = new LinkedHashMap<>();
+        dataTable.asMap().forEach((label, option) -> checkboxes.put(label,
+                option != null && List.of("true", "ticked", "checked").contains(option.trim().toLowerCase())));
+        setCheckboxes(checkboxes);
+    }
 
     /**
-     * Untick all the checkboxes visible on the page
+     * Ticks and unticks checkboxes by their label with one script call. Checkboxes that are not on the page yet, or
+     * that a script cannot tick, are waited for and clicked one at a time.
+     * @param checkboxes Whether each checkbox, by its user facing label, should end up ticked.
+     */
+    public void setCheckboxes(Map<String, Boolean> checkboxes){
+        List<ElementInfoStruct> checkboxInformation = new ArrayList<>();
+        List<Boolean> ticked = new ArrayList<>();
+        checkboxes.forEach((label, tick) -> {
+            checkboxInformation.add(pageIndex().getCheckboxes().findAndReturnCheckboxForApplication(label));
+            ticked.add(tick);
+        });
+        webDriver().invalidateElementCache();
+        List<BulkInteractions.Outcome> outcomes = BulkInteractions.tick(webDriver().getWebDriver(), checkboxInformation, ticked);
+        for (int i = 0; i < outcomes.size(); i++) {
+            if (outcomes.get(i) != BulkInteractions.Outcome.DONE) {
+                WebElement checkbox = webDriver().findWaitAndGetSingularElement(checkboxInformation.get(i), true);
+                if (checkbox.isSelected() != ticked.get(i)) {
+                    jsButtonClick(checkbox);
+                }
+            }
+        }
+    }
+
+    /**
+     * Untick all the checkboxes visible on the page, with one script call once they are found
      */
     public void untickAllCheckboxes(){
         List<WebElement> checkboxes = webDriver().findWaitAndGetMultipleElements(ElementAttributeTypes.xPath,
                 "//input[@type='checkbox']", true);
-
-        checkboxes.forEach(box -> {
-            if(box.isSelected()){
-                shared().jsButtonClick(box);
-            }
-        });
+        webDriver().invalidateElementCache();
+        BulkInteractions.untick(webDriver().getWebDriver(), checkboxes);
     }
 
 /*************** Input fields functionality ***************************************************************************/
@@ -144,7 +173,7 @@ public class SharedFunctionalityPage extends BasePage {
      * @return Returns a struct with input field information.
      */
     private ElementInfoStruct findInputField(String inputFieldName){
-        return pageIndex().getInputFields().findAndReturnInputFieldForApplication(inputFieldName.toLowerCase());
+        return pageIndex().getInputFields().findAndReturnInputFieldForApplication(inputFieldName);
     }
 
     /**
@@ -157,18 +186,13 @@ public class SharedFunctionalityPage extends BasePage {
     }
 
     /**
-     * Clearing fields. The WebDriverWait timer waits until the field is clear.
+     * Clearing fields by typing a backspace for every character, all sent in one call.
      * @param field The WebElement reference to the input field.
      */
     public void clearField(WebElement field) {
         int fieldValueLength = field.getAttribute("value").length();
         if(fieldValueLength > 0){
-            for (int i = 0; i < fieldValueLength + 5; i++){
-                field.sendKeys(Keys.BACK_SPACE);
-                if(field.getAttribute("value").isEmpty()){
-                    break;
-                }
-            }
+            field.sendKeys(Keys.BACK_SPACE.toString().repeat(fieldValueLength + 5));
         }
     }
 
@@ -179,11 +203,62 @@ public class SharedFunctionalityPage extends BasePage {
      */
     public void findInputFieldAndPopulateWithString(String inputFieldLabelName, String fieldValue){
         ElementInfoStruct inputFieldInformation = findInputField(inputFieldLabelName);
-        WebElement inputField = webDriver().findWaitAndGetSingularElement
-                (inputFieldInformation.getAttributeType(), inputFieldInformation.getAttributeValue(), true);
+        WebElement inputField = webDriver().findWaitAndGetSingularElement(inputFieldInformation, true);
         clearAndPopulateField(inputField, fieldValue);
     }
 
+    /**
+     * Fills in input fields by their label with one script call, firing the input and change events a user's typing
+     * would. An empty value clears the field. Fields marked as typed in the locator files, fields that are not on the
+     * page yet and fields a script cannot set are waited for and typed into one at a time.
+     * @param fieldValues The value for each input field, by its user facing label.
+     */
+    public void fillInputFields(Map<String, String> fieldValues){
+        List<ElementInfoStruct> scriptedFields = new ArrayList<>();
+        List<String> scriptedValues = new ArrayList<>();
+        Map<ElementInfoStruct, String> typedFields = new LinkedHashMap<>();
+        fieldValues.forEach((label, value) -> {
+            ElementInfoStruct field = findInputField(label);
+            String fieldValue = value == null ? "" : value;
+            if (field.isRequiresTyping()) {
+                typedFields.put(field, fieldValue);
+            } else {
+                scriptedFields.add(field);
+                scriptedValues.add(fieldValue);
+            }
+        });
+        if (!scriptedFields.isEmpty()) {
+            webDriver().invalidateElementCache();
+            List<BulkInteractions.Outcome> outcomes = BulkInteractions.fill(webDriver().getWebDriver(), scriptedFields, scriptedValues);
+            for (int i = 0; i < outcomes.size(); i++) {
+                if (outcomes.get(i) != BulkInteractions.Outcome.DONE) {
+                    typedFields.put(scriptedFields.get(i), scriptedValues.get(i));
+                }
+            }
+        }
+        typedFields.forEach((field, value) ->
+                clearAndPopulateField(webDriver().findWaitAndGetSingularElement(field, true), value));
+    }
+
+    /**
+     * Fills in input fields from a feature file table.
+     * @param dataTable A datatable with the user facing label of each input field in the first column and its value
+     *                  in the second, empty to clear the field.
+     */
+    public void fillInputFields(DataTable dataTable){
+        fillInputFields(dataTable.asMap());
+    }
+
+    /**
+     * Clears input fields by their label with one script call.
+     * @param inputFieldNames The user facing labels of the input fields.
+     */
+    public void clearInputFields(List<String> inputFieldNames){
+        Map<String, String> emptyValues = new LinkedHashMap<>();
+        inputFieldNames.forEach(label -> emptyValues.put(label, ""));
+        fillInputFields(emptyValues);
+    }
+
     /**
      * This method verifies the input field exists, clears and checks the field is empty then
      * it enters the value into it.
@@ -0,0 +1,125 @@
+package org.automationsuite.pages;
+
+import io.cucumber.datatable.DataTable;
+import org.automationsuite.ElementInformation.ElementAttributeTypes;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.fail;
+
+public class TablePage extends BasePage {
+
+    // How many differing rows a failed table assertion lists
+    private static final int maxReportedDifferences = 10;
+    // Reads an HTML table, or an ARIA grid built from other elements, in one call
+    private static final String snapshotScript = """
+            var table = arguments[0], attributes = arguments[1];
+            function text(cell) {
+                return (cell.innerText || cell.textContent || '').trim();
+            }
+            function cellsOf(row) {
+                return row.cells ? Array.prototype.slice.call(row.cells)
+                        : Array.prototype.slice.call(row.querySelectorAll('[role=cell], [role=gridcell], [role=columnheader], [role=rowheader]'));
+            }
+            var headerRow = null, bodyRows = [];
+            if (table.tBodies) {
+                if (table.tHead && table.tHead.rows.length > 0) {
+                    headerRow = table.tHead.rows[table.tHead.rows.length - 1];
+                }
+                Array.prototype.forEach.call(table.tBodies, function (body) {
+                    bodyRows = bodyRows.concat(Array.prototype.slice.call(body.rows));
+                });
+            } else {
+                var gridRows = Array.prototype.slice.call(table.querySelectorAll('[role=row]'));
+                if (gridRows.length > 0 && gridRows[0].querySelector('[role=columnheader]')) {
+                    headerRow = gridRows.shift();
+                }
+                bodyRows = gridRows;
+            }
+            if (!headerRow && bodyRows.length > 0 && bodyRows[0].querySelector('th') && !bodyRows[0].querySelector('td')) {
+                headerRow = bodyRows.shift();
+            }
+            return {
+                headers: headerRow ? cellsOf(headerRow).map(text) : [],
+                rows: bodyRows.map(function (row) {
+                    return cellsOf(row).map(function (cell) {
+                        var values = {};
+                        attributes.forEach(function (attribute) {
+                            var value = cell.getAttribute(attribute);
+                            if (value === null) {
+                                var inner = cell.querySelector('[' + CSS.escape(attribute) + ']');
+                                value = inner ? inner.getAttribute(attribute) : null;
+                            }
+                            values[attribute] = value;
+                        });
+                        return [text(cell), values];
+                    });
+                })
+            };
+            """;
+
+    /**
+     * Reads a whole table in one call: its headers, and the text and chosen attributes of every cell.
+     * @param table The WebElement reference to a table element, or an element with ARIA grid rows.
+     * @param attributes The attributes to read from every cell (or from the first element in the cell that has them),
+     *                   e.g. "href".
+     * @return The content of the table.
+     */
+    public TableSnapshot snapshotTable(WebElement table, String... attributes){
+        return TableSnapshot.fromScriptResult(((JavascriptExecutor) webDriver().getWebDriver())
+                .executeScript(snapshotScript, table, List.of(attributes)));
+    }
+
+    /**
+     * Waits for a table and reads it in one call.
+     * @param attributeType The attribute type to reference.
+     * @param locator The attribute value to reference.
+     * @param attributes The attributes to read from every cell.
+     * @return The content of the table.
+     */
+    public TableSnapshot findAndSnapshotTable(ElementAttributeTypes attributeType, String locator, String... attributes){
+        return snapshotTable(webDriver().findWaitAndGetSingularElement(attributeType, locator, true), attributes);
+    }
+
+    /**
+     * Asserts a table shows the rows of a feature file table, in the same order. Only the columns named in the first
+     * row of the feature file table are compared.
+     * @param table The WebElement reference to the table.
+     * @param expected The feature file table, with column headers in its first row.
+     */
+    public void assertTableMatches(WebElement table, DataTable expected){
+        assertTableMatches(snapshotTable(table), expected);
+    }
+
+    /**
+     * Asserts a table that has already been read shows the rows of a feature file table, in the same order. Only the
+     * columns named in the first row of the feature file table are compared.
+     * @param snapshot The content of the table.
+     * @param expected The feature file table, with column headers in its first row.
+     */
+    public void assertTableMatches(TableSnapshot snapshot, DataTable expected){
+        List<Map<String, String>> expectedRows = expected.asMaps();
+        List<Map<String, String>> actualRows = snapshot.asMaps(expected.row(0));
+        List<String> differences = new ArrayList<>();
+        if (expectedRows.size() != actualRows.size()) {
+            differences.add("expected " + expectedRows.size() + " rows but the table has " + actualRows.size());
+        }
+        for (int i = 0; i < Math.min(expectedRows.size(), actualRows.size()) && differences.size() < maxReportedDifferences; i++) {
+            Map<String, String> actualRow = actualRows.get(i);
+            for (Map.Entry<String, String> expectedCell : expectedRows.get(i).entrySet()) {
+                String expectedText = expectedCell.getValue() == null ? "" : expectedCell.getValue().trim();
+                if (!expectedText.equals(actualRow.get(expectedCell.getKey()))) {
+                    differences.add("row " + (i + 1) + " " + expectedCell.getKey() + ": expected '" + expectedText
+                            + "' but was '" + actualRow.get(expectedCell.getKey()) + "'");
+                }
+            }
+        }
+        if (!differences.isEmpty()) {
+            fail("The table does not match:\n  " + String.join("\n  ", differences));
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package org.automationsuite.pages;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The content of a table at one point in time, read from the page with a single script call.
+ * @param headers The text of the header cells, empty if the table has no header row.
+ * @param rows The rows of the table body.
+ */
+public record TableSnapshot(List<String> headers, List<Row> rows) {
+
+    /**
+     * One row of the table body.
+     * @param cells The cells of the row, in column order.
+     */
+    public record Row(List<Cell> cells) {
+
+        /**
+         * @param column The column index, 0 based.
+         * @return The text of the cell, or an empty string if the row has no cell in that column.
+         */
+        public String text(int column) {
+            return column < cells.size() ? cells.get(column).text() : "";
+        }
+    }
+
+    /**
+     * One cell of the table.
+     * @param text The text of the cell, as the user sees it.
+     * @param attributes The attributes asked for when the table was read, taken from the cell or else from the first
+     *                   element in it that has the attribute. A missing attribute maps to null.
+     */
+    public record Cell(String text, Map<String, String> attributes) {}
+
+    /**
+     * @return The number of rows in the table body.
+     */
+    public int rowCount() {
+        return rows.size();
+    }
+
+    /**
+     * Returns the index of a column.
+     * @param header The text of the column's header cell.
+     * @return The column index, 0 based.
+     * @throws IllegalArgumentException If the table has no column with the header.
+     */
+    public int columnIndex(String header) {
+        int index = headers.indexOf(header);
+        if (index < 0) {
+            throw new IllegalArgumentException("The table has no column '" + header + "', its columns are " + headers);
+        }
+        return index;
+    }
+
+    /**
+     * @param row The row index, 0 based.
+     * @param header The text of the column's header cell.
+     * @return The text of the cell.
+     */
+    public String cellText(int row, String header) {
+        return rows.get(row).text(columnIndex(header));
+    }
+
+    /**
+     * @param header The text of the column's header cell.
+     * @return The text of every cell in the column, top to bottom.
+     */
+    public List<String> column(String header) {
+        int index = columnIndex(header);
+        return rows.stream().map(row -> row.text(index)).toList();
+    }
+
+    /**
+     * @return The text of every cell, one list per row.
+     */
+    public List<List<String>> asLists() {
+        return rows.stream().map(row -> row.cells().stream().map(Cell::text).toList()).toList();
+    }
+
+    /**
+     * Returns the rows as maps of header to cell text, for some of the columns.
+     * @param columnHeaders The headers of the columns to include.
+     * @return One map per row, in column order.
+     */
+    public List<Map<String, String>> asMaps(List<String> columnHeaders) {
+        List<Integer> indexes = columnHeaders.stream().map(this::columnIndex).toList();
+        List<Map<String, String>> maps = new ArrayList<>(rows.size());
+        for (Row row : rows) {
+            Map<String, String> map = new LinkedHashMap<>();
+            for (int i = 0; i < columnHeaders.size(); i++) {
+                map.put(columnHeaders.get(i), row.text(indexes.get(i)));
+            }
+            maps.add(map);
+        }
+        return maps;
+    }
+
+    /**
+     * Builds a snapshot from what the table script returned.
+     */
+    @SuppressWarnings("unchecked")
+    static TableSnapshot fromScriptResult(Object result) {
+        Map<String, Object> table = (Map<String, Object>) result;
+        List<String> headers = List.copyOf((List<String>) table.get("headers"));
+        List<Row> rows = new ArrayList<>();
+        for (List<List<Object>> row : (List<List<List<Object>>>) table.get("rows")) {
+            List<Cell> cells = new ArrayList<>(row.size());
+            for (List<Object> cell : row) {
+                // Map.copyOf does not allow the nulls of missing attributes
+                Map<String, String> attributes = Collections.unmodifiableMap(new LinkedHashMap<>((Map<String, String>) cell.get(1)));
+                cells.add(new Cell((String) cell.get(0), attributes));
+            }
+            rows.add(new Row(List.copyOf(cells)));
+        }
+        return new TableSnapshot(headers, List.copyOf(rows));
+    }
+}
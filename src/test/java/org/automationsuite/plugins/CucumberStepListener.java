@@ -4,11 +4,13 @@ import io.cucumber.plugin.ConcurrentEventListener;
 import io.cucumber.plugin.event.EventHandler;
 import io.cucumber.plugin.event.EventPublisher;
 import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.TestCaseStarted;
 import io.cucumber.plugin.event.TestStepFinished;
 
 public class CucumberStepListener implements ConcurrentEventListener {
 
-    // ThreadLocal to store error messages independently for each thread
+    // ThreadLocal to store error messages independently for each scenario thread. Events are published on the thread
+    // running the scenario, so this works for pooled platform threads and per-scenario virtual threads alike
     private static final ThreadLocal<String> failedStepError = new ThreadLocal<>();
 
     /**
@@ -22,6 +24,9 @@ public class CucumberStepListener implements ConcurrentEventListener {
 
     @Override
     public void setEventPublisher(EventPublisher eventPublisher) {
+        // A worker thread can run many scenarios, never let an error from the previous one leak into the next
+        eventPublisher.registerHandlerFor(TestCaseStarted.class, testCaseStarted -> failedStepError.remove());
+
         eventPublisher.registerHandlerFor(TestStepFinished.class, new EventHandler<TestStepFinished>() {
             @Override
             public void receive(TestStepFinished testStepFinished) {
@@ -1,12 +1,7 @@
 package org.automationsuite.reporting;
 
 import com.aventstack.extentreports.ExtentReports;
-import com.aventstack.extentreports.ExtentTest;
-import com.aventstack.extentreports.MediaEntityBuilder;
-import com.aventstack.extentreports.Status;
 import com.aventstack.extentreports.gherkin.model.*;
-import com.aventstack.extentreports.markuputils.ExtentColor;
-import com.aventstack.extentreports.markuputils.MarkupHelper;
 import com.aventstack.extentreports.reporter.ExtentSparkReporter;
 import com.aventstack.extentreports.reporter.configuration.Theme;
 import com.aventstack.extentreports.reporter.configuration.ViewName;
@@ -22,19 +17,22 @@ import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 
 import java.lang.reflect.Field;
+import java.time.Duration;
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 public class ExtentReportManager extends BasePage {
 
-    private static final ExtentReports extentReports = init();
-    private final ConcurrentHashMap<String, ExtentTest> featureTests = new ConcurrentHashMap<>();
+    // Report calls run on the writer's thread, so a slow report never holds up a scenario
+    private static final ReportWriter reportWriter = new ReportWriter(init(), Integer.parseInt(System.getProperty("REPORT_QUEUE_SIZE", "10000")));
+    private static final Duration flushTimeout = Duration.ofMinutes(2);
+    private static final AtomicLong scenarioIds = new AtomicLong();
 
     private final ThreadLocal<Scenario> threadLocalScenario = new ThreadLocal<>();
-    private final ThreadLocal<ExtentTest> threadLocalScenarioTest = new ThreadLocal<>();
+    private final ThreadLocal<Long> threadLocalScenarioId = new ThreadLocal<>();
     private final ThreadLocal<Deque<PickleStepTestStep>> threadLocalScenarioSteps = ThreadLocal.withInitial(LinkedList::new);
 
 
@@ -64,10 +62,10 @@ public class ExtentReportManager extends BasePage {
         threadLocalScenario.set(scenario);
 
         String featureFileName = FilenameUtils.getBaseName(threadLocalScenario.get().getUri().toString());
-
-        ExtentTest featureTest = featureTests.computeIfAbsent(featureFileName, name -> extentReports.createTest(name));
-        ExtentTest scenarioNode = featureTest.createNode(threadLocalScenario.get().getName());
-        threadLocalScenarioTest.set(scenarioNode);
+        String scenarioKey = threadLocalScenario.get().getUri() + ":" + threadLocalScenario.get().getLine();
+        long scenarioId = scenarioIds.incrementAndGet();
+        threadLocalScenarioId.set(scenarioId);
+        reportWriter.send(new ReportWriter.ScenarioStarted(scenarioId, featureFileName, scenarioKey, threadLocalScenario.get().getName()));
 
         threadLocalScenarioSteps.get().addAll(getAllScenarioSteps());
     }
@@ -87,7 +85,11 @@ public class ExtentReportManager extends BasePage {
             }
         }
 
-        threadLocalScenarioTest.remove();
+        if (threadLocalScenarioId.get() != null) {
+            reportWriter.send(new ReportWriter.ScenarioFinished(threadLocalScenarioId.get()));
+        }
+        threadLocalScenario.remove();
+        threadLocalScenarioId.remove();
         threadLocalScenarioSteps.remove();
 
     }
@@ -140,29 +142,26 @@ public class ExtentReportManager extends BasePage {
     private void logStep(PickleStepTestStep step, Boolean testPreviouslyFailed){
         String stepText = "<span style='color: white; font-weight: bold;'>" + step.getStep().getText() + "</span>";
         String keyword = step.getStep().getKeyword().toLowerCase().trim();
-        ExtentTest stepNode;
-
-        switch (keyword){
-            case "given" -> stepNode = threadLocalScenarioTest.get().createNode(Given.class, stepText);
-            case "when" -> stepNode = threadLocalScenarioTest.get().createNode(When.class, stepText);
-            case "and" -> stepNode = threadLocalScenarioTest.get().createNode(And.class, stepText);
-            case "then" -> stepNode = threadLocalScenarioTest.get().createNode(Then.class, stepText);
-            case "*" -> stepNode = threadLocalScenarioTest.get().createNode(Asterisk.class, stepText);
+        Class<? extends IGherkinFormatterModel> keywordType = switch (keyword){
+            case "given" -> Given.class;
+            case "when" -> When.class;
+            case "and" -> And.class;
+            case "then" -> Then.class;
+            case "*" -> Asterisk.class;
             default -> throw new IllegalStateException("Unexpected value: " + keyword);
-        }
+        };
+        long scenarioId = threadLocalScenarioId.get();
 
         if(threadLocalScenario.get().isFailed() && testPreviouslyFailed){
-            stepNode.skip(MarkupHelper.createLabel("This step has been skipped.", ExtentColor.ORANGE));
+            reportWriter.send(new ReportWriter.StepFinished(scenarioId, keywordType, stepText, ReportWriter.StepOutcome.SKIPPED, null, null));
         } else if(threadLocalScenario.get().isFailed()){
-            stepNode.fail(MarkupHelper.createLabel("Step has failed.", ExtentColor.RED));
             // todo - fix this jank around error logging
             String errStack = CucumberStepListener.getFailedStepError();
             log.error("Error occurred in the \"{}\" step resulting in the error: {}", step.getStep().getText(), errStack);
-            stepNode.log(Status.INFO, "<div class='log-text'>" + errStack + "</div>");
-
-            stepNode.log(Status.INFO, MediaEntityBuilder.createScreenCaptureFromBase64String("data:image/png;base64," + takeScreenshot()).build());
+            // The screenshot has to come from this thread's browser before the scenario moves on
+            reportWriter.send(new ReportWriter.StepFinished(scenarioId, keywordType, stepText, ReportWriter.StepOutcome.FAILED, errStack, takeScreenshot()));
         } else {
-            stepNode.pass(MarkupHelper.createLabel("Step passed.", ExtentColor.GREEN));
+            reportWriter.send(new ReportWriter.StepFinished(scenarioId, keywordType, stepText, ReportWriter.StepOutcome.PASSED, null, null));
         }
     }
 
@@ -170,7 +169,10 @@ public class ExtentReportManager extends BasePage {
         return ((TakesScreenshot) pageIndex().getDriverPage().getWebDriver()).getScreenshotAs(OutputType.BASE64);
     }
 
+    /**
+     * Writes the report file once every event sent so far has been written to the report.
+     */
     public static void flushReport(){
-        extentReports.flush();
+        reportWriter.flush(flushTimeout);
     }
 }
@@ -0,0 +1,185 @@
+package org.automationsuite.reporting;
+
+import com.aventstack.extentreports.ExtentReports;
+import com.aventstack.extentreports.ExtentTest;
+import com.aventstack.extentreports.MediaEntityBuilder;
+import com.aventstack.extentreports.Status;
+import com.aventstack.extentreports.gherkin.model.IGherkinFormatterModel;
+import com.aventstack.extentreports.markuputils.ExtentColor;
+import com.aventstack.extentreports.markuputils.MarkupHelper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The only thread that writes to the report. Scenario threads send what happened as events to a bounded queue and
+ * carry on, and the writer builds the feature, scenario and step nodes from them in the order they were sent. As only
+ * the writer touches the report, each feature gets exactly one node however many threads run its scenarios.
+ */
+@Slf4j
+final class ReportWriter {
+
+    /**
+     * Something that happened in a scenario, to be written to the report.
+     */
+    sealed interface Event permits ScenarioStarted, StepFinished, ScenarioFinished, Flush {}
+
+    /**
+     * A scenario, or another attempt of a retried scenario, started.
+     * @param scenarioId Identifies this attempt of the scenario in the events that follow.
+     * @param featureName The name of the feature node to group the scenario under.
+     * @param scenarioKey The feature uri and line of the scenario, the same for every attempt.
+     * @param scenarioName The name of the scenario.
+     */
+    record ScenarioStarted(long scenarioId, String featureName, String scenarioKey, String scenarioName) implements Event {}
+
+    /**
+     * A step of a scenario finished.
+     * @param error The formatted error of a failed step, null otherwise.
+     * @param screenshot The base64 screenshot taken when the step failed, null otherwise.
+     */
+    record StepFinished(long scenarioId, Class<? extends IGherkinFormatterModel> keyword, String stepText,
+                        StepOutcome outcome, String error, String screenshot) implements Event {}
+
+    /**
+     * A scenario finished, no more of its steps will be sent.
+     */
+    record ScenarioFinished(long scenarioId) implements Event {}
+
+    /**
+     * Everything sent before has to be written to the report file.
+     */
+    record Flush(CompletableFuture<Void> written) implements Event {}
+
+    enum StepOutcome {
+        PASSED,
+        FAILED,
+        SKIPPED
+    }
+
+    private final ExtentReports extentReports;
+    private final BlockingQueue<Event> events;
+
+    // Only used by the writer thread
+    private final Map<String, ExtentTest> featureTests = new HashMap<>();
+    private final Map<String, ExtentTest> latestAttempts = new HashMap<>();
+    private final Map<String, Integer> attemptCounts = new HashMap<>();
+    private final Map<Long, ExtentTest> runningScenarios = new HashMap<>();
+
+    ReportWriter(ExtentReports extentReports, int capacity) {
+        this.extentReports = extentReports;
+        this.events = new ArrayBlockingQueue<>(capacity);
+        Thread.ofPlatform().name("report-writer").daemon().start(this::writeEvents);
+    }
+
+    /**
+     * Queues an event for the writer. Only waits when the writer is a whole queue of events behind.
+     * @param event The event.
+     */
+    void send(Event event) {
+        if (events.offer(event)) {
+            return;
+        }
+        log.warn("The report queue is full, waiting for the report writer to catch up");
+        try {
+            events.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for the report writer, {} was not reported", event.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Waits for everything sent so far to be written to the report file.
+     * @param timeout How long to wait for the writer.
+     */
+    void flush(Duration timeout) {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        send(new Flush(written));
+        try {
+            written.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for the report to be written");
+        } catch (ExecutionException e) {
+            log.error("Could not write the report", e.getCause());
+        } catch (TimeoutException e) {
+            log.error("The report was not written within {} s, {} events were still queued", timeout.toSeconds(), events.size());
+        }
+    }
+
+    private void writeEvents() {
+        while (true) {
+            Event event;
+            try {
+                event = events.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                write(event);
+            } catch (RuntimeException e) {
+                // One bad event must not stop the rest of the run being reported
+                log.error("Could not write {} to the report", event.getClass().getSimpleName(), e);
+            }
+        }
+    }
+
+    private void write(Event event) {
+        switch (event) {
+            case ScenarioStarted started -> startScenario(started);
+            case StepFinished step -> writeStep(step);
+            case ScenarioFinished finished -> runningScenarios.remove(finished.scenarioId());
+            case Flush flush -> {
+                try {
+                    extentReports.flush();
+                    flush.written().complete(null);
+                } catch (RuntimeException e) {
+                    flush.written().completeExceptionally(e);
+                }
+            }
+        }
+    }
+
+    private void startScenario(ScenarioStarted started) {
+        ExtentTest featureTest = featureTests.computeIfAbsent(started.featureName(), extentReports::createTest);
+        int attempt = attemptCounts.merge(started.scenarioKey(), 1, Integer::sum);
+        String scenarioName = started.scenarioName() + (attempt > 1 ? " (attempt " + attempt + ")" : "");
+        ExtentTest scenarioNode = featureTest.createNode(scenarioName);
+        runningScenarios.put(started.scenarioId(), scenarioNode);
+
+        // A retried scenario replaces the node of its previous attempt
+        ExtentTest previousAttempt = latestAttempts.put(started.scenarioKey(), scenarioNode);
+        if (previousAttempt != null) {
+            extentReports.removeTest(previousAttempt);
+        }
+    }
+
+    private void writeStep(StepFinished step) {
+        ExtentTest scenarioNode = runningScenarios.get(step.scenarioId());
+        if (scenarioNode == null) {
+            log.warn("Step \"{}\" belongs to no running scenario and was not reported", step.stepText());
+            return;
+        }
+        ExtentTest stepNode = scenarioNode.createNode(step.keyword(), step.stepText());
+        switch (step.outcome()) {
+            case SKIPPED -> stepNode.skip(MarkupHelper.createLabel("This step has been skipped.", ExtentColor.ORANGE));
+            case FAILED -> {
+                stepNode.fail(MarkupHelper.createLabel("Step has failed.", ExtentColor.RED));
+                stepNode.log(Status.INFO, "<div class='log-text'>" + step.error() + "</div>");
+                if (step.screenshot() != null) {
+                    stepNode.log(Status.INFO, MediaEntityBuilder.createScreenCaptureFromBase64String("data:image/png;base64," + step.screenshot()).build());
+                }
+            }
+            case PASSED -> stepNode.pass(MarkupHelper.createLabel("Step passed.", ExtentColor.GREEN));
+        }
+    }
+}
@@ -4,20 +4,37 @@ import io.cucumber.java.AfterStep;
 import io.cucumber.java.Scenario;
 import io.cucumber.java.an.E;
 import lombok.extern.slf4j.Slf4j;
+import org.automationsuite.config.BrowserProfile;
 import org.automationsuite.pages.BasePage;
 import io.cucumber.java.Before;
 import io.cucumber.java.After;
 import org.automationsuite.pages.PageManager;
 import org.automationsuite.reporting.ExtentReportManager;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Slf4j
 public class Hooks extends BasePage {
 
+    // Scenarios with this tag always get a new browser, which is never reused by another scenario
+    private static final String freshBrowserTag = "@freshBrowser";
+    // Where a copy of the page is saved when a scenario fails, empty to save none
+    private static final String domSnapshotDirectory = System.getProperty("DOM_SNAPSHOTS", "target/dom-snapshots");
+    // How many times each scenario, by feature uri and line, has started, so a retry does not overwrite its snapshot
+    private static final Map<String, Integer> scenarioAttempts = new ConcurrentHashMap<>();
+
     private ExtentReportManager extentReportManager = new ExtentReportManager();
 
     @Before
     public void beforeScenarioSetup(Scenario scenario){
-        pageIndex().getDriverPage().createWebBrowser();
+        scenarioAttempts.merge(scenario.getUri() + ":" + scenario.getLine(), 1, Integer::sum);
+        pageIndex().getDriverPage().createWebBrowser(scenario.getSourceTagNames().contains(freshBrowserTag),
+                BrowserProfile.forTags(scenario.getSourceTagNames()));
+        log.info("Scenario \"{}\" waited {} ms for its browser", scenario.getName(),
+                pageIndex().getDriverPage().getDriverWaitTime().toMillis());
         extentReportManager.beforeScenario(scenario);
     }
 
@@ -28,9 +45,34 @@ public class Hooks extends BasePage {
     }
 
     @After
-    public void afterScenario() {
-        pageIndex().getDriverPage().driverShutdown();
+    public void afterScenario(Scenario scenario) {
+        if (scenario.isFailed()) {
+            saveDomSnapshot(scenario);
+        }
+        pageIndex().getDriverPage().releaseDriver(!scenario.isFailed());
         PageManager.cleanup();
         extentReportManager.afterScenarioCleanup();
     }
+
+    /**
+     * Saves a copy of the page a failed scenario ended on, to look at alongside the report.
+     * @param scenario The failed scenario.
+     */
+    private void saveDomSnapshot(Scenario scenario) {
+        if (domSnapshotDirectory.isBlank() || pageIndex().getDriverPage().getWebDriver() == null) {
+            return;
+        }
+        String featureFile = Paths.get(scenario.getUri().getSchemeSpecificPart()).getFileName().toString().replaceFirst("\\.feature$", "");
+        int attempt = scenarioAttempts.getOrDefault(scenario.getUri() + ":" + scenario.getLine(), 1);
+        String fileName = String.join("-", featureFile, scenario.getName(), String.valueOf(scenario.getLine()), "attempt" + attempt)
+                .replaceAll("[^A-Za-z0-9_-]+", "_") + ".html";
+        Path file = Paths.get(domSnapshotDirectory, fileName);
+        try {
+            pageIndex().getDriverPage().takeDomSnapshot().save(file);
+            log.info("Saved the page scenario \"{}\" failed on to {}", scenario.getName(), file);
+        } catch (RuntimeException e) {
+            // The browser may be what failed, which must not hide the scenario's own failure
+            log.warn("Could not save the page scenario \"{}\" failed on: {}", scenario.getName(), e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,28 @@
+package org.automationsuite.testlaunchers;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.IntFunction;
+
+@RequiredArgsConstructor
+public enum ExecutionMode {
+
+    // A fixed pool of worker threads, concurrency is the smaller of the thread count and the browser session limit
+    PLATFORM_THREADS(Executors::newFixedThreadPool),
+
+    // Every scenario gets its own virtual thread, concurrency is set by the browser session limit alone
+    VIRTUAL_THREADS(_ -> Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("scenario-", 1).factory()));
+
+    private final IntFunction<ExecutorService> executorFactory;
+
+    /**
+     * Creates the executor scenarios are run on.
+     * @param threadCount The number of worker threads, ignored for virtual threads.
+     * @return The executor.
+     */
+    public ExecutorService createExecutor(int threadCount){
+        return executorFactory.apply(threadCount);
+    }
+}
@@ -0,0 +1,219 @@
+package org.automationsuite.testlaunchers;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.cucumber.core.feature.FeatureParser;
+import io.cucumber.core.gherkin.Feature;
+import io.cucumber.core.gherkin.Pickle;
+import io.cucumber.core.resource.Resource;
+import io.cucumber.tagexpressions.Expression;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Finds the feature files and indexes their scenarios by tag without parsing every file on every run. What each file
+ * contains is cached on disk keyed by a hash of its content, so only new or changed files are parsed to rebuild the
+ * index. Cucumber still needs the parsed feature to run a scenario, so after selection only the files that have a
+ * selected scenario are parsed.
+ */
+@Slf4j
+public class FeatureIndex {
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final URI projectRoot = Paths.get("").toAbsolutePath().toUri();
+
+    private final FeatureParser featureParser = new FeatureParser(UUID::randomUUID);
+    // Feature file path relative to the project -> the file on disk, in path order so selection is deterministic
+    private final Map<String, Path> featureFiles = new TreeMap<>();
+    private final Map<String, CachedFeature> cachedFeatures = new HashMap<>();
+    // Files parsed while building the index, so a changed file is never parsed twice in the same run
+    private final Map<String, Feature> parsedFeatures = new HashMap<>();
+    // The tags of a scenario -> every scenario with exactly those tags, so a tag expression is evaluated once per combination
+    private final Map<List<String>, List<String>> scenarioKeysByTags = new HashMap<>();
+
+    /**
+     * What a feature file contained when it was last parsed.
+     * @param contentHash The SHA-256 hash of the file content.
+     * @param scenarios Every scenario in the file, with outlines expanded into one scenario per example row.
+     */
+    public record CachedFeature(String contentHash, List<CachedScenario> scenarios) {}
+
+    /**
+     * A scenario as it is kept in the cache.
+     * @param line The line of the scenario, or of its example row.
+     * @param tags The tags of the scenario, including the ones inherited from the feature and examples.
+     */
+    public record CachedScenario(int line, List<String> tags) {}
+
+    /**
+     * The features and scenarios chosen for a run.
+     * @param features The parsed features that have at least one selected scenario.
+     * @param scenarios The selected scenarios, in feature file path order.
+     */
+    public record Selection(List<Feature> features, List<Pickle> scenarios) {}
+
+    private FeatureIndex() {}
+
+    /**
+     * Indexes every feature file under a directory, parsing only the files that are not in the cache or have changed
+     * since, and writes the cache back when anything changed.
+     * @param featureDirectory The directory holding the feature files.
+     * @param cacheFile The cache file to read from and save to.
+     * @return The index.
+     */
+    public static FeatureIndex build(Path featureDirectory, Path cacheFile) {
+        Map<String, CachedFeature> previousCache = loadCache(cacheFile);
+        FeatureIndex index = new FeatureIndex();
+        try (Stream<Path> paths = Files.walk(featureDirectory)) {
+            paths.filter(Files::isRegularFile)
+                    .filter(path -> path.toString().endsWith(".feature"))
+                    .forEach(path -> index.add(path, previousCache));
+        } catch (Exception e) {
+            log.error("Error loading feature files", e);
+        }
+
+        log.info("Indexed {} feature files, parsed {} new or changed", index.featureFiles.size(), index.parsedFeatures.size());
+        if (!index.parsedFeatures.isEmpty() || !previousCache.keySet().equals(index.cachedFeatures.keySet())) {
+            index.saveCache(cacheFile);
+        }
+        return index;
+    }
+
+    /**
+     * Selects the scenarios matching a tag expression and a filter, then parses the files they are in.
+     * @param tagExpression The tag expression the scenarios have to match.
+     * @param scenarioFilter Also has to accept the key of a scenario, see ScenarioDurationHistory.scenarioKey.
+     * @return The selected features and scenarios.
+     */
+    public Selection select(Expression tagExpression, Predicate<String> scenarioFilter) {
+        Set<String> selectedKeys = new LinkedHashSet<>();
+        scenarioKeysByTags.forEach((tags, scenarioKeys) -> {
+            if (tagExpression.evaluate(tags)) {
+                scenarioKeys.stream().filter(scenarioFilter).forEach(selectedKeys::add);
+            }
+        });
+
+        List<Feature> features = new ArrayList<>();
+        List<Pickle> scenarios = new ArrayList<>();
+        featureFiles.forEach((relativePath, featureFile) -> {
+            if (cachedFeatures.get(relativePath).scenarios().stream().noneMatch(scenario -> selectedKeys.contains(relativePath + ":" + scenario.line()))) {
+                return;
+            }
+            Feature feature = parsedFeatures.containsKey(relativePath) ? parsedFeatures.get(relativePath) : parse(featureFile, read(featureFile));
+            if (feature == null) {
+                return;
+            }
+            features.add(feature);
+            feature.getPickles().stream()
+                    .filter(pickle -> selectedKeys.contains(ScenarioDurationHistory.scenarioKey(pickle)))
+                    .forEach(scenarios::add);
+        });
+        log.info("Selected {} scenarios from {} of {} feature files", scenarios.size(), features.size(), featureFiles.size());
+        return new Selection(features, scenarios);
+    }
+
+    private void add(Path featureFile, Map<String, CachedFeature> previousCache) {
+        String relativePath = projectRoot.relativize(featureFile.toAbsolutePath().toUri()).toString();
+        byte[] content = read(featureFile);
+        if (content == null) {
+            return;
+        }
+        String contentHash = hash(content);
+
+        CachedFeature cachedFeature = previousCache.get(relativePath);
+        if (cachedFeature == null || !cachedFeature.contentHash().equals(contentHash)) {
+            Feature feature = parse(featureFile, content);
+            if (feature == null) {
+                return;
+            }
+            parsedFeatures.put(relativePath, feature);
+            cachedFeature = new CachedFeature(contentHash, feature.getPickles().stream()
+                    .map(pickle -> new CachedScenario(pickle.getLocation().getLine(), List.copyOf(pickle.getTags())))
+                    .toList());
+        }
+
+        featureFiles.put(relativePath, featureFile);
+        cachedFeatures.put(relativePath, cachedFeature);
+        cachedFeature.scenarios().forEach(scenario -> scenarioKeysByTags
+                .computeIfAbsent(scenario.tags(), _ -> new ArrayList<>())
+                .add(relativePath + ":" + scenario.line()));
+    }
+
+    private Feature parse(Path featureFile, byte[] content) {
+        if (content == null) {
+            return null;
+        }
+        try {
+            return featureParser.parseResource(new Resource() {
+                @Override
+                public URI getUri() {
+                    return featureFile.toUri();
+                }
+
+                @Override
+                public InputStream getInputStream() {
+                    return new ByteArrayInputStream(content);
+                }
+            }).orElse(null);
+        } catch (Exception e) {
+            log.error("Error parsing feature file: " + featureFile, e);
+            return null;
+        }
+    }
+
+    private static byte[] read(Path featureFile) {
+        try {
+            return Files.readAllBytes(featureFile);
+        } catch (Exception e) {
+            log.error("Error reading feature file: " + featureFile, e);
+            return null;
+        }
+    }
+
+    private static String hash(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (Exception e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static Map<String, CachedFeature> loadCache(Path cacheFile) {
+        if (Files.isRegularFile(cacheFile)) {
+            try {
+                return mapper.readValue(cacheFile.toFile(), new TypeReference<>() {});
+            } catch (Exception e) {
+                log.error("Error reading feature cache, parsing every feature file", e);
+            }
+        }
+        return Map.of();
+    }
+
+    private void saveCache(Path cacheFile) {
+        try {
+            Files.createDirectories(cacheFile.toAbsolutePath().getParent());
+            mapper.writeValue(cacheFile.toFile(), new TreeMap<>(cachedFeatures));
+        } catch (Exception e) {
+            log.error("Error saving feature cache to " + cacheFile, e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package org.automationsuite.testlaunchers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.automationsuite.config.DriverPool;
+import org.automationsuite.config.GridStatus;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the number of scenarios allowed to run at the same time in line with the free capacity of the Selenium Grid,
+ * so sessions are never requested from a Grid that has no slot for them and no slot sits idle while scenarios wait.
+ */
+@Slf4j
+public class GridAdmission implements AutoCloseable {
+
+    private final URI gridUrl;
+    private final int maxBrowserSessions;
+    private final ScenarioScheduler scheduler;
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("grid-admission").daemon().factory());
+
+    /**
+     * Class Constructor
+     * @param gridUrl The address of the Grid.
+     * @param maxBrowserSessions Never admit more scenarios than this, however much room the Grid has.
+     * @param scheduler The scheduler whose session limit follows the Grid.
+     */
+    public GridAdmission(URI gridUrl, int maxBrowserSessions, ScenarioScheduler scheduler) {
+        this.gridUrl = gridUrl;
+        this.maxBrowserSessions = maxBrowserSessions;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Sets the session limit from the Grid now, then keeps it up to date in the background.
+     * @param pollInterval How often the Grid status is read.
+     */
+    public void start(Duration pollInterval) {
+        poll();
+        poller.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        poller.shutdownNow();
+    }
+
+    private void poll() {
+        // Sessions this run already holds are busy on the Grid but are still ours to use, so they count towards the limit
+        GridStatus.fetch(gridUrl).ifPresentOrElse(
+                capacity -> scheduler.setMaxBrowserSessions(Math.min(maxBrowserSessions,
+                        (capacity.freeSlots() + DriverPool.openSessions()) * DriverPool.scenariosPerSession())),
+                () -> log.warn("Could not read the Grid status from {}, keeping the current session limit", gridUrl));
+    }
+}
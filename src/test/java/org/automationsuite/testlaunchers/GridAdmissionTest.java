@@ -0,0 +1,175 @@
+package org.automationsuite.testlaunchers;
+
+import com.sun.net.httpserver.HttpServer;
+import io.cucumber.plugin.event.Status;
+import org.automationsuite.config.GridStatus;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.function.IntSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Checks the Grid readiness wait and the Grid admission limit against a stub of the Grid's /status endpoint.
+ */
+public class GridAdmissionTest {
+
+    private HttpServer grid;
+    private URI gridUrl;
+    // What the stub answers, changed by the tests as nodes join and leave
+    private volatile int statusCode = 200;
+    private volatile String statusBody = status(false);
+
+    @Before
+    public void startGrid() throws IOException {
+        grid = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        grid.createContext("/status", exchange -> {
+            byte[] body = statusBody.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(statusCode, body.length);
+            try (OutputStream response = exchange.getResponseBody()) {
+                response.write(body);
+            }
+        });
+        grid.start();
+        gridUrl = URI.create("http://localhost:" + grid.getAddress().getPort());
+    }
+
+    @After
+    public void stopGrid() {
+        grid.stop(0);
+    }
+
+    @Test
+    public void fetchCountsTheSlotsOfNodesThatAreUp() {
+        statusBody = status(true, node("UP", 3, 1), node("UP", 1, 0), node("DOWN", 2, 0));
+
+        GridStatus.GridCapacity capacity = GridStatus.fetch(gridUrl).orElseThrow();
+
+        assertTrue(capacity.ready());
+        assertEquals(4, capacity.totalSlots());
+        assertEquals(3, capacity.freeSlots());
+    }
+
+    @Test
+    public void fetchIsEmptyWhenTheGridAnswersWithAnError() {
+        statusCode = 500;
+
+        assertEquals(Optional.empty(), GridStatus.fetch(gridUrl));
+    }
+
+    @Test
+    public void fetchIsEmptyWhenTheGridCannotBeReached() {
+        grid.stop(0);
+
+        assertEquals(Optional.empty(), GridStatus.fetch(gridUrl));
+    }
+
+    @Test
+    public void awaitReadyTimesOutWhenTheGridNeverHasASlot() {
+        statusBody = status(true);
+        long startTime = System.nanoTime();
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> GridStatus.awaitReady(gridUrl, Duration.ofSeconds(1)));
+
+        assertTrue(error.getMessage(), error.getMessage().contains("was not ready within 1s"));
+        assertTrue("Gave up too early", Duration.ofNanos(System.nanoTime() - startTime).toMillis() >= 1000);
+    }
+
+    @Test
+    public void awaitReadyReturnsOnceANodeRegisters() {
+        Thread.ofPlatform().daemon().start(() -> {
+            sleep(Duration.ofMillis(1500));
+            statusBody = status(true, node("UP", 2, 0));
+        });
+
+        GridStatus.GridCapacity capacity = GridStatus.awaitReady(gridUrl, Duration.ofSeconds(10));
+
+        assertEquals(2, capacity.totalSlots());
+    }
+
+    @Test
+    public void admissionLimitFollowsNodesJoiningAndLeaving() {
+        statusBody = status(true, node("UP", 2, 0));
+        ScenarioScheduler scheduler = ScenarioScheduler.builder()
+                .executionMode(ExecutionMode.PLATFORM_THREADS)
+                .threadCount(8)
+                .maxBrowserSessions(1)
+                .defaultScenarioTimeout(Duration.ofMinutes(1))
+                .scenarioRunner(_ -> Status.PASSED)
+                .build();
+
+        try (GridAdmission admission = new GridAdmission(gridUrl, 6, scheduler)) {
+            admission.start(Duration.ofMillis(50));
+            assertEquals(2, scheduler.getMaxBrowserSessions());
+
+            statusBody = status(true, node("UP", 2, 0), node("UP", 3, 1));
+            awaitLimit(scheduler::getMaxBrowserSessions, 4);
+
+            // Never more than MAX_BROWSER_SESSIONS, however many nodes join
+            statusBody = status(true, node("UP", 10, 0));
+            awaitLimit(scheduler::getMaxBrowserSessions, 6);
+
+            statusBody = status(true, node("DOWN", 10, 0));
+            awaitLimit(scheduler::getMaxBrowserSessions, 0);
+
+            // An unreadable status keeps the limit the Grid last reported
+            statusBody = status(true, node("UP", 2, 0));
+            awaitLimit(scheduler::getMaxBrowserSessions, 2);
+            statusCode = 503;
+            sleep(Duration.ofMillis(300));
+            assertEquals(2, scheduler.getMaxBrowserSessions());
+        }
+    }
+
+    @Test
+    public void fetchTreatsAMissingReadyFlagAsNotReady() {
+        statusBody = "{\"value\": {\"nodes\": []}}";
+
+        assertFalse(GridStatus.fetch(gridUrl).orElseThrow().ready());
+    }
+
+    private static void awaitLimit(IntSupplier limit, int expected) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (limit.getAsInt() != expected) {
+            if (System.nanoTime() > deadline) {
+                fail("The session limit stayed at " + limit.getAsInt() + " instead of " + expected);
+            }
+            sleep(Duration.ofMillis(20));
+        }
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String status(boolean ready, String... nodes) {
+        return "{\"value\": {\"ready\": " + ready + ", \"nodes\": [" + String.join(", ", nodes) + "]}}";
+    }
+
+    private static String node(String availability, int slots, int busySlots) {
+        String busy = "{\"session\": {\"sessionId\": \"abc\"}}";
+        String free = "{\"session\": null}";
+        return "{\"availability\": \"" + availability + "\", \"slots\": ["
+                + String.join(", ", Collections.nCopies(busySlots, busy))
+                + (busySlots > 0 && slots > busySlots ? ", " : "")
+                + String.join(", ", Collections.nCopies(slots - busySlots, free)) + "]}";
+    }
+}
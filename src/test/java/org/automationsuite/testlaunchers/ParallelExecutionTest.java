@@ -1,93 +1,160 @@
 package org.automationsuite.testlaunchers;
 
-import io.cucumber.core.feature.FeatureWithLines;
+import io.cucumber.core.gherkin.Feature;
+import io.cucumber.core.gherkin.Pickle;
 import io.cucumber.core.options.RuntimeOptions;
 import io.cucumber.core.options.RuntimeOptionsBuilder;
-import io.cucumber.core.runtime.Runtime;
+import io.cucumber.plugin.event.Status;
+import io.cucumber.tagexpressions.Expression;
 import io.cucumber.tagexpressions.TagExpressionParser;
 import lombok.extern.slf4j.Slf4j;
+import org.automationsuite.config.BrowserProfile;
+import org.automationsuite.config.DriverPool;
+import org.automationsuite.config.GridStatus;
+import org.automationsuite.other.WaitStatistics;
+import org.automationsuite.pages.ElementCache;
+import org.automationsuite.pages.ElementHandle;
 import org.automationsuite.reporting.ExtentReportManager;
+import org.automationsuite.variables.LocatorRegistry;
 import org.junit.Test;
 
 import java.net.URI;
-import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertTrue;
 
 @Slf4j
 public class ParallelExecutionTest {
 
         private final String scenarioTags = System.getProperty("TAGS") == null ? "@Test" : System.getProperty("TAGS");
+        // Kept outside target/ so mvn clean does not throw the history away between runs
+        private final String durationHistoryFile = System.getProperty("DURATION_HISTORY") == null
+                ? ".scenario-history/durations.json" : System.getProperty("DURATION_HISTORY");
+        private final ExecutionMode executionMode = ExecutionMode.valueOf(System.getProperty("EXECUTION_MODE", "PLATFORM_THREADS").toUpperCase());
+        // Same switch WebDriverDefinition uses to create browsers on the Selenium Grid
+        private final boolean remoteGrid = Boolean.parseBoolean(System.getenv("PIPELINE_EXECUTION"));
+        private final boolean gridAdmission = remoteGrid && Boolean.parseBoolean(System.getProperty("GRID_ADMISSION", "true"));
+        private final Duration gridReadyTimeout = Duration.ofSeconds(Long.parseLong(System.getProperty("GRID_READY_TIMEOUT", "120")));
+        private final Duration gridPollInterval = Duration.ofSeconds(Long.parseLong(System.getProperty("GRID_POLL_INTERVAL", "5")));
+        private final int threadCount = Integer.parseInt(System.getProperty("THREADS", "2"));
+        // With Grid admission the Grid's free slots set the limit, so there is no default cap
+        private final int maxBrowserSessions = Integer.parseInt(System.getProperty("MAX_BROWSER_SESSIONS",
+                String.valueOf(gridAdmission ? Integer.MAX_VALUE : threadCount)));
+        private final Duration scenarioTimeout = Duration.ofSeconds(Long.parseLong(System.getProperty("SCENARIO_TIMEOUT", "300")));
+        private final Duration runTimeout = Duration.ofMinutes(Long.parseLong(System.getProperty("RUN_TIMEOUT", "10")));
+        private final int failFastAfter = Integer.parseInt(System.getProperty("FAIL_FAST", "0"));
+        private final int shardIndex = Integer.parseInt(System.getProperty("SHARD_INDEX", "0"));
+        private final int shardTotal = Integer.parseInt(System.getProperty("SHARD_TOTAL", "1"));
+        private final int maxRetries = Integer.parseInt(System.getProperty("RETRIES", "0"));
+        private final String rerunInputFile = System.getProperty("RERUN");
+        private final String rerunOutputFile = System.getProperty("RERUN_OUTPUT", "target/rerun.txt");
+        private final String featureCacheFile = System.getProperty("FEATURE_CACHE", "target/feature-cache/features.json");
+
+        private final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        private final ScenarioDurationHistory durationHistory = ScenarioDurationHistory.load(Paths.get(durationHistoryFile));
 
         @Test
         public void executeParallelSuite() {
                 log.info("Running tests with tags: " + scenarioTags);
+                // Load and check every locator now, so a bad locator file fails the run before any scenario starts
+                LocatorRegistry.get();
+
+                // Select the scenarios matching the tags from the feature index, parse only the files they are in and keep
+                // this shard's share, longest expected duration first
+                long parseStartTime = System.nanoTime();
+                FeatureIndex.Selection selection = selectScenarios();
+                long featureParseNanos = System.nanoTime() - parseStartTime;
+                List<Feature> features = selection.features();
+                List<Pickle> shardScenarios = ScenarioShards.select(selection.scenarios(), shardIndex, shardTotal, durationHistory);
+                List<Pickle> scenarios = durationHistory.longestFirst(shardScenarios);
+                log.info("Queued " + scenarios.size() + " scenarios");
 
-                // Load all feature files
-                List<String> featureFiles = loadFeatureFiles();
+                // Wait for the Grid rather than fail the first scenarios while its nodes are still registering
+                int workerThreads = threadCount;
+                if (remoteGrid) {
+                        GridStatus.GridCapacity capacity = GridStatus.awaitReady(GridStatus.gridUrl(), gridReadyTimeout);
+                        if (gridAdmission && System.getProperty("THREADS") == null) {
+                                workerThreads = Math.max(threadCount, capacity.totalSlots());
+                        }
+                }
 
-                // Define a fixed thread pool with a size of 3
-                int threadCount = 2;
-                ExecutorService executorService = Executors.newFixedThreadPool(threadCount);
+                // One runtime for the whole run, each worker keeps its own glue between scenarios
+                ScenarioRuntime runtime = new ScenarioRuntime(buildRuntimeOptions(), classLoader);
 
+                // The next scenario starts as soon as a browser session is free, regardless of which feature file it came from
+                ScenarioScheduler scheduler = ScenarioScheduler.builder()
+                        .executionMode(executionMode)
+                        .threadCount(workerThreads)
+                        .maxBrowserSessions(maxBrowserSessions)
+                        .defaultScenarioTimeout(scenarioTimeout)
+                        .failFastAfter(failFastAfter)
+                        .maxRetries(maxRetries)
+                        .scenarioRunner(scenario -> runScenario(runtime, scenario))
+                        .build();
+
+                // Start the first browsers while Cucumber is still setting up, when pre-warming is on
+                DriverPool.prewarm();
+                // Only admit as many scenarios at once as the Grid has free slots for, following nodes as they join or leave
+                GridAdmission admission = gridAdmission ? new GridAdmission(GridStatus.gridUrl(), maxBrowserSessions, scheduler) : null;
+                if (admission != null) {
+                        admission.start(gridPollInterval);
+                }
+                AtomicReference<ScenarioRunSummary> summary = new AtomicReference<>();
                 try {
-                        // Submit each feature file to the thread pool
-                        featureFiles.forEach(featureFile -> executorService.submit(() -> runFeatureFile(featureFile)));
+                        runtime.run(features, () -> summary.set(scheduler.runAll(scenarios, runTimeout.toMinutes(), TimeUnit.MINUTES)));
                 } finally {
-                        // Shutdown the executor service gracefully after all tasks are completed
-                        executorService.shutdown();
-                        try {
-                                // Wait for all threads to complete execution
-                                if (!executorService.awaitTermination(10, TimeUnit.MINUTES)) {
-                                        executorService.shutdownNow();
-                                }
-                                ExtentReportManager.flushReport();
-                        } catch (InterruptedException e) {
-                                log.error("Thread pool interrupted while waiting for termination", e);
-                                executorService.shutdownNow();
+                        if (admission != null) {
+                                admission.close();
                         }
+                        runtime.logStartupSavings(scenarios.size(), features.size(), featureParseNanos);
+                        durationHistory.save();
+                        DriverPool.shutdown();
+                        BrowserProfile.logPageLoadTimes();
+                        WaitStatistics.report();
+                        ElementHandle.logReResolvedElements();
+                        ElementCache.logStatistics();
+                        ExtentReportManager.flushReport();
+                }
+
+                RerunFile.write(Paths.get(rerunOutputFile), summary.get().failures().stream().map(ScenarioResult::scenario).toList());
+                log.info("Run summary: " + summary.get().describe());
+                assertTrue(summary.get().describe(), summary.get().passed());
+        }
+
+        private Status runScenario(ScenarioRuntime runtime, Pickle scenario) {
+                log.info("Running scenario: " + scenario.getName() + " (" + scenario.getUri() + ":" + scenario.getLocation().getLine() + ")");
+                long startTime = System.nanoTime();
+                try {
+                        return runtime.runScenario(scenario);
+                } finally {
+                        durationHistory.record(scenario, Duration.ofNanos(System.nanoTime() - startTime));
                 }
         }
 
-        private void runFeatureFile(String featureFile) {
-                log.info("Running feature file: " + featureFile);
-                RuntimeOptionsBuilder runtimeOptions = new RuntimeOptionsBuilder()
-                        .addFeature(FeatureWithLines.parse(featureFile))
+        private RuntimeOptions buildRuntimeOptions() {
+                return new RuntimeOptionsBuilder()
                         .addGlue(URI.create("classpath:org.automationsuite.steps"))
                         .addDefaultSummaryPrinterIfNotDisabled()
                         .addPluginName("pretty")
-                        .addPluginName("org.automationsuite.plugins.CucumberStepListener"); // Your custom plugin
-
-                runtimeOptions.addTagFilter(TagExpressionParser.parse(scenarioTags));
-
-                RuntimeOptions runtimeConfig = runtimeOptions.build();
-                Runtime runtime = Runtime.builder()
-                        .withRuntimeOptions(runtimeConfig)
-                        .withClassLoader(() -> Thread.currentThread().getContextClassLoader())
+                        .addPluginName("org.automationsuite.plugins.CucumberStepListener") // Your custom plugin
                         .build();
-
-                try {
-                        runtime.run();
-                } catch (Exception ex) {
-                        log.error("Error running feature file: " + featureFile, ex);
-                }
         }
 
-        private List<String> loadFeatureFiles() {
-                try {
-                        return Files.walk(Paths.get("src/test/resources/Features"))
-                                .filter(Files::isRegularFile)
-                                .filter(path -> path.toString().endsWith(".feature"))
-                                .map(String::valueOf)
-                                .collect(Collectors.toList());
-                } catch (Exception e) {
-                        log.error("Error loading feature files", e);
-                        return List.of();
-                }
+        /**
+         * Returns every scenario that matches the tag expression and, when a rerun file is given, is listed in it,
+         * together with the parsed features they belong to. Scenario outlines are expanded, so each example row is its
+         * own scenario.
+         * @return The matching features and scenarios.
+         */
+        private FeatureIndex.Selection selectScenarios() {
+                FeatureIndex featureIndex = FeatureIndex.build(Paths.get("src/test/resources/Features"), Paths.get(featureCacheFile));
+                Expression tagExpression = TagExpressionParser.parse(scenarioTags);
+                Set<String> rerunScenarios = rerunInputFile == null ? null : RerunFile.read(Paths.get(rerunInputFile));
+                return featureIndex.select(tagExpression, scenarioKey -> rerunScenarios == null || rerunScenarios.contains(scenarioKey));
         }
 }
-
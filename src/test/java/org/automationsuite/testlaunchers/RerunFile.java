@@ -0,0 +1,78 @@
+package org.automationsuite.testlaunchers;
+
+import io.cucumber.core.gherkin.Pickle;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Reads and writes the list of scenarios that still failed at the end of a run, in Cucumber's rerun format
+ * (one feature file per line followed by the lines of its failed scenarios, e.g. path/to/file.feature:4:9).
+ */
+@Slf4j
+public class RerunFile {
+
+    // The feature file path, then one or more :line suffixes
+    private static final Pattern rerunLine = Pattern.compile("^(.+?)((?::\\d+)+)$");
+
+    private RerunFile(){}
+
+    /**
+     * Writes the failed scenarios to the rerun file. An empty file is written when nothing failed.
+     * @param rerunFile The file to write.
+     * @param failedScenarios The scenarios that still failed after every attempt.
+     */
+    public static void write(Path rerunFile, List<Pickle> failedScenarios) {
+        Map<String, Set<Integer>> linesByFeature = new TreeMap<>();
+        failedScenarios.forEach(scenario -> {
+            String scenarioKey = ScenarioDurationHistory.scenarioKey(scenario);
+            int separator = scenarioKey.lastIndexOf(':');
+            linesByFeature.computeIfAbsent(scenarioKey.substring(0, separator), _ -> new TreeSet<>())
+                    .add(Integer.parseInt(scenarioKey.substring(separator + 1)));
+        });
+
+        String content = linesByFeature.entrySet().stream()
+                .map(feature -> feature.getKey() + ":" + feature.getValue().stream().map(String::valueOf).collect(Collectors.joining(":")))
+                .collect(Collectors.joining("\n"));
+        try {
+            Files.createDirectories(rerunFile.toAbsolutePath().getParent());
+            Files.writeString(rerunFile, content);
+            log.info("Wrote {} failed scenarios to {}", failedScenarios.size(), rerunFile);
+        } catch (Exception e) {
+            log.error("Error writing rerun file " + rerunFile, e);
+        }
+    }
+
+    /**
+     * Reads a rerun file into scenario keys, in the same form as ScenarioDurationHistory.scenarioKey.
+     * @param rerunFile The file to read.
+     * @return The keys of the scenarios listed in the file.
+     */
+    public static Set<String> read(Path rerunFile) {
+        Set<String> scenarioKeys = new HashSet<>();
+        try {
+            for (String line : Files.readAllLines(rerunFile)) {
+                Matcher matcher = rerunLine.matcher(line.trim());
+                if (!matcher.matches()) {
+                    continue;
+                }
+                for (String scenarioLine : matcher.group(2).substring(1).split(":")) {
+                    scenarioKeys.add(matcher.group(1) + ":" + scenarioLine);
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Error reading rerun file " + rerunFile, e);
+        }
+        return scenarioKeys;
+    }
+}
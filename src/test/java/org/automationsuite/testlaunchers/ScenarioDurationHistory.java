@@ -0,0 +1,161 @@
+package org.automationsuite.testlaunchers;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.cucumber.core.gherkin.Pickle;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+public class ScenarioDurationHistory {
+
+    // Only the most recent runs are kept so the estimate follows changes to the application
+    private static final int maxSamplesPerScenario = 10;
+    // Used for unknown scenarios when there is no history at all to derive a per-step cost from
+    private static final long defaultMillisPerStep = 5000;
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private static final URI projectRoot = Paths.get("").toAbsolutePath().toUri();
+
+    private final Path historyFile;
+    private final ConcurrentHashMap<String, ScenarioRecord> history;
+
+    /**
+     * The durations recorded for a single scenario.
+     * @param steps The number of steps the scenario had when it was last run.
+     * @param durationsMillis The most recent wall-clock durations, oldest first.
+     */
+    public record ScenarioRecord(int steps, List<Long> durationsMillis) {
+
+        long averageMillis() {
+            return (long) durationsMillis.stream().mapToLong(Long::longValue).average().orElse(0);
+        }
+    }
+
+    private ScenarioDurationHistory(Path historyFile, Map<String, ScenarioRecord> history) {
+        this.historyFile = historyFile;
+        this.history = new ConcurrentHashMap<>(history);
+    }
+
+    /**
+     * Loads the duration history from disk. A missing or unreadable file starts an empty history.
+     * @param historyFile The history file to read from and save to.
+     * @return The loaded history.
+     */
+    public static ScenarioDurationHistory load(Path historyFile) {
+        if (Files.isRegularFile(historyFile)) {
+            try {
+                Map<String, ScenarioRecord> history = mapper.readValue(historyFile.toFile(), new TypeReference<>() {});
+                log.info("Loaded duration history for {} scenarios from {}", history.size(), historyFile);
+                return new ScenarioDurationHistory(historyFile, history);
+            } catch (Exception e) {
+                log.error("Error reading scenario duration history, starting with an empty history", e);
+            }
+        }
+        return new ScenarioDurationHistory(historyFile, Map.of());
+    }
+
+    /**
+     * Builds a key that identifies a scenario between runs.
+     * @param scenario The scenario.
+     * @return The feature file path relative to the project and the line of the scenario.
+     */
+    public static String scenarioKey(Pickle scenario) {
+        return projectRoot.relativize(scenario.getUri()) + ":" + scenario.getLocation().getLine();
+    }
+
+    /**
+     * Records how long a scenario took in this run.
+     * @param scenario The scenario that finished.
+     * @param duration Its wall-clock duration.
+     */
+    public void record(Pickle scenario, Duration duration) {
+        history.compute(scenarioKey(scenario), (_, previous) -> {
+            List<Long> durations = new ArrayList<>(previous == null ? List.of() : previous.durationsMillis());
+            durations.add(duration.toMillis());
+            if (durations.size() > maxSamplesPerScenario) {
+                durations.subList(0, durations.size() - maxSamplesPerScenario).clear();
+            }
+            return new ScenarioRecord(scenario.getSteps().size(), List.copyOf(durations));
+        });
+    }
+
+    /**
+     * Returns the expected duration of a scenario. Scenarios without history are estimated from their step count
+     * using the average step cost of every scenario that does have history.
+     * @param scenario The scenario.
+     * @return The expected duration in milliseconds.
+     */
+    public long expectedMillis(Pickle scenario) {
+        return expectedMillis(scenario, averageMillisPerStep());
+    }
+
+    /**
+     * Returns the expected duration of every scenario, estimating the unknown ones the same way as a single lookup.
+     * @param scenarios The scenarios.
+     * @return The expected duration in milliseconds of each scenario.
+     */
+    public Map<Pickle, Long> expectedMillis(List<Pickle> scenarios) {
+        long millisPerStep = averageMillisPerStep();
+        Map<Pickle, Long> expected = new IdentityHashMap<>();
+        scenarios.forEach(scenario -> expected.put(scenario, expectedMillis(scenario, millisPerStep)));
+        return expected;
+    }
+
+    /**
+     * Orders scenarios longest expected duration first, so the long ones are not left to start at the end of the run.
+     * @param scenarios The scenarios to order.
+     * @return A new list in longest-first order.
+     */
+    public List<Pickle> longestFirst(List<Pickle> scenarios) {
+        Map<Pickle, Long> expected = expectedMillis(scenarios);
+        return scenarios.stream()
+                .sorted(Comparator.comparing(expected::get, Comparator.reverseOrder()))
+                .toList();
+    }
+
+    /**
+     * Writes the history back to disk, sorted by key so the file diffs cleanly between runs.
+     */
+    public void save() {
+        try {
+            Files.createDirectories(historyFile.toAbsolutePath().getParent());
+            mapper.writeValue(historyFile.toFile(), new TreeMap<>(history));
+        } catch (Exception e) {
+            log.error("Error saving scenario duration history to " + historyFile, e);
+        }
+    }
+
+    private long expectedMillis(Pickle scenario, long millisPerStep) {
+        ScenarioRecord scenarioRecord = history.get(scenarioKey(scenario));
+        if (scenarioRecord != null && !scenarioRecord.durationsMillis().isEmpty()) {
+            return scenarioRecord.averageMillis();
+        }
+        return Math.max(1, scenario.getSteps().size()) * millisPerStep;
+    }
+
+    private long averageMillisPerStep() {
+        long totalMillis = 0;
+        long totalSteps = 0;
+        for (ScenarioRecord scenarioRecord : history.values()) {
+            if (scenarioRecord.steps() > 0 && !scenarioRecord.durationsMillis().isEmpty()) {
+                totalMillis += scenarioRecord.averageMillis();
+                totalSteps += scenarioRecord.steps();
+            }
+        }
+        return totalSteps == 0 ? defaultMillisPerStep : Math.max(1, totalMillis / totalSteps);
+    }
+}
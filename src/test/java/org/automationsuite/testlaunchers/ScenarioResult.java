@@ -0,0 +1,33 @@
+package org.automationsuite.testlaunchers;
+
+import io.cucumber.core.gherkin.Pickle;
+import io.cucumber.plugin.event.Status;
+
+import java.time.Duration;
+
+/**
+ * The outcome of a single scenario run.
+ * @param scenario The scenario that was run.
+ * @param status The Cucumber status of the scenario.
+ * @param duration How long the scenario ran for.
+ * @param timedOut True if the scenario was cancelled for exceeding its time limit.
+ * @param attempts How many times the scenario was attempted, this result being the last attempt.
+ */
+public record ScenarioResult(Pickle scenario, Status status, Duration duration, boolean timedOut, int attempts) {
+
+    /**
+     * @return True if the scenario failed or timed out.
+     */
+    public boolean failed() {
+        return timedOut || !status.isOk();
+    }
+
+    /**
+     * @return A one line description of the scenario and where it is defined.
+     */
+    public String describe() {
+        return scenario.getName() + " (" + ScenarioDurationHistory.scenarioKey(scenario) + ")"
+                + (timedOut ? " timed out" : " " + status)
+                + (attempts > 1 ? " after " + attempts + " attempts" : "");
+    }
+}
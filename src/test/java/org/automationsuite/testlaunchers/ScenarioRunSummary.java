@@ -0,0 +1,50 @@
+package org.automationsuite.testlaunchers;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The aggregated outcome of a scheduled run.
+ * @param results The result of every scenario that was started.
+ * @param notStarted The number of scenarios that were never started.
+ * @param failFastTriggered True if scheduling stopped because the failure limit was reached.
+ * @param runTimedOut True if the whole run exceeded its time limit.
+ */
+public record ScenarioRunSummary(List<ScenarioResult> results, int notStarted, boolean failFastTriggered, boolean runTimedOut) {
+
+    /**
+     * @return The results of the scenarios that failed or timed out.
+     */
+    public List<ScenarioResult> failures() {
+        return results.stream().filter(ScenarioResult::failed).toList();
+    }
+
+    /**
+     * @return True only if every scenario was started and passed.
+     */
+    public boolean passed() {
+        return notStarted == 0 && !runTimedOut && failures().isEmpty();
+    }
+
+    /**
+     * @return A readable summary, listing every failed scenario.
+     */
+    public String describe() {
+        StringBuilder summary = new StringBuilder()
+                .append(results.size()).append(" scenarios run, ")
+                .append(failures().size()).append(" failed, ")
+                .append(notStarted).append(" not started");
+        if (failFastTriggered) {
+            summary.append(", stopped early after reaching the failure limit");
+        }
+        if (runTimedOut) {
+            summary.append(", run time limit reached");
+        }
+        if (!failures().isEmpty()) {
+            summary.append("\n").append(failures().stream()
+                    .map(result -> "\t" + result.describe())
+                    .collect(Collectors.joining("\n")));
+        }
+        return summary.toString();
+    }
+}
@@ -0,0 +1,155 @@
+package org.automationsuite.testlaunchers;
+
+import io.cucumber.core.eventbus.EventBus;
+import io.cucumber.core.gherkin.Feature;
+import io.cucumber.core.gherkin.Pickle;
+import io.cucumber.core.options.RuntimeOptions;
+import io.cucumber.core.plugin.PluginFactory;
+import io.cucumber.core.plugin.Plugins;
+import io.cucumber.core.runner.Runner;
+import io.cucumber.core.runtime.BackendServiceLoader;
+import io.cucumber.core.runtime.BackendSupplier;
+import io.cucumber.core.runtime.CucumberExecutionContext;
+import io.cucumber.core.runtime.ExitStatus;
+import io.cucumber.core.runtime.ObjectFactoryServiceLoader;
+import io.cucumber.core.runtime.ObjectFactorySupplier;
+import io.cucumber.core.runtime.SingletonObjectFactorySupplier;
+import io.cucumber.core.runtime.SingletonRunnerSupplier;
+import io.cucumber.core.runtime.TimeServiceEventBus;
+import io.cucumber.core.runtime.UuidGeneratorServiceLoader;
+import io.cucumber.plugin.event.Status;
+import io.cucumber.plugin.event.TestCaseFinished;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static io.cucumber.core.runtime.SynchronizedEventBus.synchronize;
+
+/**
+ * A single Cucumber runtime for the whole run. Plugins and the event bus are created once, and glue runners are kept
+ * in a pool that scenarios lease for as long as they run. Runners are not tied to a thread, so short-lived virtual
+ * threads reuse the same glue instead of building their own.
+ */
+@Slf4j
+public class ScenarioRuntime {
+
+    private final CucumberExecutionContext context;
+    private final Supplier<Runner> runnerFactory;
+    private final long runtimeSetupNanos;
+
+    private final BlockingQueue<Runner> idleRunners = new LinkedBlockingQueue<>();
+    // Only set while the current thread is running a scenario (or the before/after all hooks)
+    private final ThreadLocal<Runner> leasedRunner = new ThreadLocal<>();
+    // Test case events are published on the thread running the scenario
+    private final ThreadLocal<Status> scenarioStatus = new ThreadLocal<>();
+
+    private final LongAdder runnerSetupNanos = new LongAdder();
+    private final LongAdder runnerCount = new LongAdder();
+
+    /**
+     * Class Constructor
+     * @param runtimeOptions The options the runtime is built from (glue, plugins etc.).
+     * @param classLoader The class loader the glue and plugins are loaded from.
+     */
+    public ScenarioRuntime(RuntimeOptions runtimeOptions, ClassLoader classLoader) {
+        long startTime = System.nanoTime();
+        Supplier<ClassLoader> classLoaderSupplier = () -> classLoader;
+
+        ObjectFactoryServiceLoader objectFactoryServiceLoader = new ObjectFactoryServiceLoader(classLoaderSupplier, runtimeOptions);
+
+        UuidGeneratorServiceLoader uuidGeneratorServiceLoader = new UuidGeneratorServiceLoader(classLoaderSupplier, runtimeOptions);
+        EventBus eventBus = synchronize(new TimeServiceEventBus(Clock.systemUTC(), uuidGeneratorServiceLoader.loadUuidGenerator()));
+
+        // Plugins are registered once, so listeners such as CucumberStepListener only ever see each event once
+        ExitStatus exitStatus = new ExitStatus(runtimeOptions);
+        Plugins plugins = new Plugins(new PluginFactory(), runtimeOptions);
+        plugins.addPlugin(exitStatus);
+        plugins.setSerialEventBusOnEventListenerPlugins(eventBus);
+        eventBus.registerHandlerFor(TestCaseFinished.class, event -> scenarioStatus.set(event.getResult().getStatus()));
+
+        // Every runner gets its own object factory and backends, so a runner can move between threads but is only used by one at a time
+        runnerFactory = () -> {
+            ObjectFactorySupplier objectFactorySupplier = new SingletonObjectFactorySupplier(objectFactoryServiceLoader);
+            BackendSupplier backendSupplier = new BackendServiceLoader(classLoaderSupplier, objectFactorySupplier);
+            return new SingletonRunnerSupplier(runtimeOptions, eventBus, backendSupplier, objectFactorySupplier).get();
+        };
+        context = new CucumberExecutionContext(eventBus, exitStatus, leasedRunner::get);
+        runtimeSetupNanos = System.nanoTime() - startTime;
+    }
+
+    /**
+     * Runs a whole test run: announces the features, runs the before/after all hooks around the scenarios
+     * and emits the run finished event the report plugins wait for.
+     * @param features The features the scheduled scenarios belong to.
+     * @param executeScenarios Schedules and waits for the scenarios.
+     */
+    public void run(List<Feature> features, CucumberExecutionContext.ThrowingRunnable executeScenarios) {
+        withLeasedRunner(() -> context.runFeatures(() -> {
+            features.forEach(context::beforeFeature);
+            executeScenarios.run();
+        }));
+    }
+
+    /**
+     * Runs a single scenario on the calling thread with an idle glue runner, building a new runner only when
+     * every existing one is in use.
+     * @param scenario The scenario to run.
+     * @return The status of the scenario, failed if it did not finish.
+     */
+    public Status runScenario(Pickle scenario) {
+        try {
+            withLeasedRunner(() -> context.runTestCase(runner -> runner.runPickle(scenario)));
+            Status status = scenarioStatus.get();
+            return status == null ? Status.FAILED : status;
+        } finally {
+            scenarioStatus.remove();
+        }
+    }
+
+    private void withLeasedRunner(Runnable execution) {
+        Runner runner = idleRunners.poll();
+        if (runner == null) {
+            long startTime = System.nanoTime();
+            runner = runnerFactory.get();
+            runnerSetupNanos.add(System.nanoTime() - startTime);
+            runnerCount.increment();
+        }
+
+        leasedRunner.set(runner);
+        try {
+            execution.run();
+        } finally {
+            leasedRunner.remove();
+            idleRunners.offer(runner);
+        }
+    }
+
+    /**
+     * Logs the startup time saved by sharing the runtime, compared with building a runtime, glue and parsed
+     * feature file for every scenario.
+     * @param scenarioCount The number of scenarios that were run.
+     * @param featureCount The number of feature files that were parsed.
+     * @param featureParseNanos The total time spent parsing feature files.
+     */
+    public void logStartupSavings(int scenarioCount, int featureCount, long featureParseNanos) {
+        long runners = Math.max(1, runnerCount.sum());
+        long averageRunnerNanos = runnerSetupNanos.sum() / runners;
+        long averageParseNanos = featureCount == 0 ? 0 : featureParseNanos / featureCount;
+
+        long perScenarioNanos = runtimeSetupNanos + averageRunnerNanos + averageParseNanos;
+        long sharedNanos = runtimeSetupNanos + runnerSetupNanos.sum() + featureParseNanos;
+        long savedNanos = Math.max(0, scenarioCount * perScenarioNanos - sharedNanos);
+
+        log.info("Cucumber startup: runtime {} ms once, {} glue runners averaging {} ms, {} feature files parsed once in {} ms. " +
+                        "A runtime per scenario would have cost about {} ms each; sharing saved about {} ms over {} scenarios",
+                TimeUnit.NANOSECONDS.toMillis(runtimeSetupNanos), runners, TimeUnit.NANOSECONDS.toMillis(averageRunnerNanos),
+                featureCount, TimeUnit.NANOSECONDS.toMillis(featureParseNanos), TimeUnit.NANOSECONDS.toMillis(perScenarioNanos),
+                TimeUnit.NANOSECONDS.toMillis(savedNanos), scenarioCount);
+    }
+}
@@ -0,0 +1,354 @@
+package org.automationsuite.testlaunchers;
+
+import io.cucumber.core.gherkin.Pickle;
+import io.cucumber.plugin.event.Status;
+import lombok.Builder;
+import lombok.extern.slf4j.Slf4j;
+import org.automationsuite.pages.PageManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+@Slf4j
+public class ScenarioScheduler {
+
+    // Tag that overrides the default time limit of a scenario, e.g. @timeout:600
+    private static final String timeoutTagPrefix = "@timeout:";
+    // How long a cancelled scenario gets to unwind before its browser session is handed to the next scenario anyway
+    private static final Duration cancellationGracePeriod = Duration.ofSeconds(30);
+
+    private final ExecutionMode executionMode;
+    private final int threadCount;
+    private final Duration defaultScenarioTimeout;
+    private final int failFastAfter;
+    private final int maxRetries;
+    private final Function<Pickle, Status> scenarioRunner;
+
+    // A scenario holds one browser session from its Before hook to its After hook
+    private final SessionLimit browserSessions;
+
+    // Scenarios are handed out in queue order as soon as a browser session is free
+    private final BlockingDeque<QueuedScenario> scenarioQueue = new LinkedBlockingDeque<>();
+    // Failed scenarios waiting for another attempt, only started once the main queue is empty
+    private final BlockingQueue<QueuedScenario> retryQueue = new LinkedBlockingQueue<>();
+    private final Set<RunningScenario> runningScenarios = ConcurrentHashMap.newKeySet();
+    private final Queue<ScenarioResult> results = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger failureCount = new AtomicInteger();
+    private volatile boolean stopping;
+    private final ScheduledExecutorService watchdog = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("scenario-watchdog").daemon().factory());
+
+    /**
+     * Class Constructor
+     * @param executionMode Whether scenarios run on a fixed pool of platform threads or on virtual threads.
+     * @param threadCount The number of platform worker threads, ignored for virtual threads.
+     * @param maxBrowserSessions The maximum number of scenarios (and so browsers) running at the same time.
+     * @param defaultScenarioTimeout The time limit of a scenario without a timeout tag.
+     * @param failFastAfter Stop starting new scenarios after this many failures, 0 to never stop early.
+     * @param maxRetries How many more times a failed scenario is attempted, 0 to never retry.
+     * @param scenarioRunner Runs a single scenario on the calling thread and returns its status.
+     */
+    @Builder
+    public ScenarioScheduler(ExecutionMode executionMode, int threadCount, int maxBrowserSessions,
+                             Duration defaultScenarioTimeout, int failFastAfter, int maxRetries,
+                             Function<Pickle, Status> scenarioRunner) {
+        this.executionMode = executionMode;
+        this.threadCount = threadCount;
+        this.defaultScenarioTimeout = defaultScenarioTimeout;
+        this.failFastAfter = failFastAfter;
+        this.maxRetries = maxRetries;
+        this.scenarioRunner = scenarioRunner;
+        this.browserSessions = new SessionLimit(cappedSessionLimit(maxBrowserSessions));
+    }
+
+    /**
+     * Changes how many scenarios may run at the same time, e.g. as Grid nodes join or leave. Scenarios already running
+     * are never stopped; when the limit drops, new scenarios wait until enough of them have finished.
+     * @param maxBrowserSessions The new maximum number of scenarios (and so browsers) running at the same time.
+     */
+    public void setMaxBrowserSessions(int maxBrowserSessions) {
+        int limit = cappedSessionLimit(maxBrowserSessions);
+        int previousLimit = browserSessions.resize(limit);
+        if (previousLimit != limit) {
+            log.info("Browser session limit changed from {} to {}", previousLimit, limit);
+        }
+    }
+
+    /**
+     * @return How many scenarios may currently run at the same time.
+     */
+    int getMaxBrowserSessions() {
+        return browserSessions.limit();
+    }
+
+    private int cappedSessionLimit(int maxBrowserSessions) {
+        return Math.max(0, executionMode == ExecutionMode.PLATFORM_THREADS
+                ? Math.min(threadCount, maxBrowserSessions) : maxBrowserSessions);
+    }
+
+    /**
+     * Starts every scenario as browser sessions become free and blocks until they have all finished, the failure
+     * limit is reached or the time limit of the run is reached. Failed scenarios are retried on a separate lane
+     * once the main queue is empty.
+     * @param scenarios The scenarios to run, in the order they should be started.
+     * @param timeout The maximum time to wait for the run to finish.
+     * @param unit The unit of the timeout.
+     * @return The outcome of the run.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    public ScenarioRunSummary runAll(List<Pickle> scenarios, long timeout, TimeUnit unit) throws InterruptedException {
+        scenarios.forEach(scenario -> scenarioQueue.add(new QueuedScenario(scenario, 1, null)));
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        log.info("Running {} scenarios with {} and up to {} browser sessions", scenarios.size(), executionMode,
+                browserSessions.availablePermits());
+
+        ExecutorService executor = executionMode.createExecutor(threadCount);
+        try {
+            while (browserSessions.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                QueuedScenario next = nextScenario(deadline);
+                if (next == null) {
+                    browserSessions.release();
+                    break;
+                }
+                if (failFastTriggered()) {
+                    browserSessions.release();
+                    requeue(next);
+                    break;
+                }
+                RunningScenario runningScenario = new RunningScenario(next);
+                runningScenarios.add(runningScenario);
+                executor.submit(runningScenario);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        boolean finished = executor.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        if (!finished) {
+            // Quit the browsers of everything still running rather than leaving them orphaned on the Grid
+            log.error("Run did not finish within {} {}, cancelling {} running scenarios", timeout, unit, runningScenarios.size());
+            stopping = true;
+            runningScenarios.forEach(RunningScenario::timeOut);
+            executor.shutdownNow();
+        }
+        watchdog.shutdownNow();
+
+        // A scenario still waiting for a retry keeps the result of its last failed attempt
+        retryQueue.forEach(queued -> results.add(queued.previousResult()));
+        retryQueue.clear();
+        int notStarted = scenarioQueue.size();
+        scenarioQueue.clear();
+        if (notStarted > 0) {
+            log.error("{} scenarios were not started", notStarted);
+        }
+        return new ScenarioRunSummary(List.copyOf(results), notStarted, failFastTriggered(), !finished);
+    }
+
+    /**
+     * Takes the next scenario from the main queue, or from the retry lane once the main queue is empty. While
+     * scenarios are still running this waits, as any of them may still fail and need a retry.
+     * @param deadline The System.nanoTime() the run has to finish by.
+     * @return The next scenario, or null when there is nothing left to run.
+     * @throws InterruptedException If the calling thread is interrupted while waiting.
+     */
+    private QueuedScenario nextScenario(long deadline) throws InterruptedException {
+        while (System.nanoTime() < deadline) {
+            QueuedScenario next = scenarioQueue.pollFirst();
+            if (next == null) {
+                next = retryQueue.poll(100, TimeUnit.MILLISECONDS);
+            }
+            if (next != null) {
+                return next;
+            }
+            // A failing scenario queues its retry before it stops counting as running
+            if (runningScenarios.isEmpty() && retryQueue.isEmpty() && scenarioQueue.isEmpty()) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private void requeue(QueuedScenario queued) {
+        if (queued.attempt() == 1) {
+            scenarioQueue.addFirst(queued);
+        } else {
+            retryQueue.add(queued);
+        }
+    }
+
+    /**
+     * Returns the time limit of a scenario, taken from its timeout tag if it has one.
+     * @param scenario The scenario.
+     * @return The time limit.
+     */
+    private Duration timeoutFor(Pickle scenario) {
+        return scenario.getTags().stream()
+                .filter(tag -> tag.startsWith(timeoutTagPrefix))
+                .map(tag -> Duration.ofSeconds(Long.parseLong(tag.substring(timeoutTagPrefix.length()))))
+                .findFirst()
+                .orElse(defaultScenarioTimeout);
+    }
+
+    private boolean failFastTriggered() {
+        return failFastAfter > 0 && failureCount.get() >= failFastAfter;
+    }
+
+    /**
+     * A semaphore whose number of permits can be changed while permits are held.
+     */
+    private static final class SessionLimit extends Semaphore {
+
+        private int limit;
+
+        private SessionLimit(int limit) {
+            super(limit);
+            this.limit = limit;
+        }
+
+        /**
+         * @param newLimit The new total number of permits.
+         * @return The previous total number of permits.
+         */
+        private synchronized int resize(int newLimit) {
+            int previousLimit = limit;
+            if (newLimit > limit) {
+                release(newLimit - limit);
+            } else if (newLimit < limit) {
+                reducePermits(limit - newLimit);
+            }
+            limit = newLimit;
+            return previousLimit;
+        }
+
+        private synchronized int limit() {
+            return limit;
+        }
+    }
+
+    /**
+     * A scenario waiting to be started.
+     * @param scenario The scenario.
+     * @param attempt Which attempt this will be, starting at 1.
+     * @param previousResult The result of the previous attempt, null for the first attempt.
+     */
+    private record QueuedScenario(Pickle scenario, int attempt, ScenarioResult previousResult) {}
+
+    /**
+     * A scenario that has been handed to a worker. Whichever comes first, the scenario finishing or its time limit,
+     * decides the result.
+     */
+    private final class RunningScenario implements Runnable {
+
+        private final Pickle scenario;
+        private final int attempt;
+        private final AtomicBoolean settled = new AtomicBoolean();
+        private final AtomicBoolean sessionReleased = new AtomicBoolean();
+
+        private volatile long startTime;
+        private volatile PageManager pages;
+        private volatile ScheduledFuture<?> deadline;
+        // Guarded by this, so a late time out never interrupts the worker once it has moved on to another scenario
+        private Thread worker;
+
+        private RunningScenario(QueuedScenario queued) {
+            this.scenario = queued.scenario();
+            this.attempt = queued.attempt();
+        }
+
+        @Override
+        public void run() {
+            Thread.interrupted();
+            synchronized (this) {
+                worker = Thread.currentThread();
+            }
+            // Never start an attempt on a driver left behind by an earlier scenario on this thread
+            PageManager.getInstance().getDriverPage().driverShutdown();
+            PageManager.cleanup();
+            // The hooks use the same per-thread PageManager, so this is the driver the scenario will create
+            pages = PageManager.getInstance();
+            startTime = System.nanoTime();
+            Duration timeLimit = timeoutFor(scenario);
+            deadline = watchdog.schedule(this::timeOut, timeLimit.toMillis(), TimeUnit.MILLISECONDS);
+
+            try {
+                settle(scenarioRunner.apply(scenario), false);
+            } catch (Exception ex) {
+                log.error("Error running scenario: " + scenario.getName(), ex);
+                settle(Status.FAILED, false);
+            } finally {
+                deadline.cancel(false);
+                synchronized (this) {
+                    worker = null;
+                }
+                runningScenarios.remove(this);
+                releaseSession();
+            }
+        }
+
+        /**
+         * Cancels the scenario: interrupts its worker and quits its browser so the Grid slot is freed.
+         */
+        private void timeOut() {
+            if (!settle(Status.FAILED, true)) {
+                return;
+            }
+            log.error("Scenario \"{}\" exceeded its time limit of {}s, cancelling it", scenario.getName(), timeoutFor(scenario).toSeconds());
+            synchronized (this) {
+                if (worker != null) {
+                    worker.interrupt();
+                }
+            }
+            if (pages != null) {
+                try {
+                    pages.getDriverPage().driverShutdown();
+                } catch (Exception ex) {
+                    log.error("Error quitting the driver of a cancelled scenario", ex);
+                }
+            }
+            if (!watchdog.isShutdown()) {
+                watchdog.schedule(this::releaseSession, cancellationGracePeriod.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private boolean settle(Status status, boolean timedOut) {
+            if (!settled.compareAndSet(false, true)) {
+                return false;
+            }
+            ScenarioResult result = new ScenarioResult(scenario, status, Duration.ofNanos(System.nanoTime() - startTime),
+                    timedOut, attempt);
+            if (result.failed() && attempt <= maxRetries && !stopping) {
+                log.warn("Attempt {} of scenario \"{}\" failed, queued for a retry", attempt, scenario.getName());
+                retryQueue.add(new QueuedScenario(scenario, attempt + 1, result));
+                return true;
+            }
+            results.add(result);
+            if (result.failed()) {
+                failureCount.incrementAndGet();
+            }
+            return true;
+        }
+
+        private void releaseSession() {
+            if (sessionReleased.compareAndSet(false, true)) {
+                browserSessions.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.automationsuite.testlaunchers;
+
+import io.cucumber.core.gherkin.Pickle;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Splits the selected scenarios between several processes (CI agents) so each one runs a different part of the suite,
+ * balanced by how long the scenarios are expected to take. Every process computes the same assignment from the same
+ * inputs, so the shards never overlap or miss a scenario as long as every agent starts from the same feature files,
+ * tags and duration history, e.g. the history the pipeline caches between builds. Each agent logs a fingerprint of the
+ * durations it split by, so agents that started from different histories can be told apart.
+ */
+@Slf4j
+public class ScenarioShards {
+
+    private ScenarioShards(){}
+
+    /**
+     * Returns the scenarios assigned to one shard. Scenarios are dealt longest expected duration first to whichever
+     * shard currently has the least expected work, so shards finish at roughly the same time. Scenarios without
+     * history are estimated from their step count, and equal durations are ordered by scenario key, so the split never
+     * depends on how the feature files were walked.
+     * @param scenarios Every scenario selected by the tag expression.
+     * @param shardIndex The shard to return, from 0 to shardTotal - 1.
+     * @param shardTotal The number of shards the suite is split into.
+     * @param durationHistory The history the expected durations are taken from, the same on every agent.
+     * @return The scenarios of the requested shard.
+     */
+    public static List<Pickle> select(List<Pickle> scenarios, int shardIndex, int shardTotal, ScenarioDurationHistory durationHistory) {
+        if (shardTotal < 1 || shardIndex < 0 || shardIndex >= shardTotal) {
+            throw new IllegalArgumentException("Invalid shard " + shardIndex + " of " + shardTotal
+                    + ", SHARD_INDEX must be between 0 and SHARD_TOTAL - 1");
+        }
+        if (shardTotal == 1) {
+            return scenarios;
+        }
+
+        Map<Pickle, Long> expected = durationHistory.expectedMillis(scenarios);
+        List<Pickle> ordered = scenarios.stream()
+                .sorted(Comparator.comparing((Pickle scenario) -> expected.get(scenario), Comparator.reverseOrder())
+                        .thenComparing(ScenarioDurationHistory::scenarioKey))
+                .toList();
+
+        long[] shardMillis = new long[shardTotal];
+        List<Pickle> selected = new ArrayList<>();
+        long fingerprint = 1;
+        for (Pickle scenario : ordered) {
+            int lightestShard = 0;
+            for (int shard = 1; shard < shardTotal; shard++) {
+                if (shardMillis[shard] < shardMillis[lightestShard]) {
+                    lightestShard = shard;
+                }
+            }
+            shardMillis[lightestShard] += expected.get(scenario);
+            if (lightestShard == shardIndex) {
+                selected.add(scenario);
+            }
+            fingerprint = 31 * fingerprint + (ScenarioDurationHistory.scenarioKey(scenario) + "=" + expected.get(scenario)).hashCode();
+        }
+
+        log.info("Shard {} of {}: {} of {} scenarios, expected {} ms of work (shards range {} to {} ms), split fingerprint {}",
+                shardIndex, shardTotal, selected.size(), scenarios.size(), shardMillis[shardIndex],
+                Arrays.stream(shardMillis).min().orElse(0), Arrays.stream(shardMillis).max().orElse(0),
+                Long.toHexString(fingerprint));
+        return selected;
+    }
+}
@@ -0,0 +1,16 @@
+package org.automationsuite.variables;
+
+import org.automationsuite.ElementInformation.ElementInfoStruct;
+import org.automationsuite.pages.BasePage;
+
+public class Checkboxes extends BasePage {
+
+    /**
+     * Returns checkbox element information from the "checkboxes" of the locator files.
+     * @param checkboxName The user facing label name for the checkbox.
+     * @return A struct containing checkbox information.
+     */
+    public ElementInfoStruct findAndReturnCheckboxForApplication(String checkboxName){
+        return LocatorRegistry.get().find("checkboxes", checkboxName);
+    }
+}
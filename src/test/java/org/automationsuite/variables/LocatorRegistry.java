@@ -0,0 +1,125 @@
+package org.automationsuite.variables;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.automationsuite.ElementInformation.ElementAttributeTypes;
+import org.automationsuite.ElementInformation.ElementInfoStruct;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * The locators of every application's elements, read from the JSON files in the LOCATORS directory. Each file maps an
+ * element kind (e.g. "buttons") to the user facing labels of the elements and their locators:
+ * <pre>
+ * { "buttons": { "Sign in": { "type": "DataTestId", "value": "sign-in-button" } } }
+ * </pre>
+ * Every locator is checked and compiled once when the files are loaded, and labels are matched ignoring case and
+ * extra whitespace.
+ */
+@Slf4j
+public class LocatorRegistry {
+
+    private static final ObjectMapper mapper = new ObjectMapper().enable(JsonParser.Feature.STRICT_DUPLICATE_DETECTION);
+    private static final Pattern whitespace = Pattern.compile("\\s+");
+
+    private final Map<String, Map<String, ElementInfoStruct>> locatorsByKind;
+
+    private LocatorRegistry(Map<String, Map<String, ElementInfoStruct>> locatorsByKind) {
+        this.locatorsByKind = locatorsByKind;
+    }
+
+    // typed marks input fields that have to be typed into key by key, e.g. fields with an input mask
+    private record LocatorEntry(ElementAttributeTypes type, String value, boolean typed) {}
+
+    // Loaded the first time it is used, the launcher uses it before any scenario starts so a bad file fails the run early
+    private static final class Holder {
+        private static final LocatorRegistry registry = load(Paths.get(System.getProperty("LOCATORS", "src/test/resources/locators")));
+    }
+
+    /**
+     * Returns the registry of the run, loading it the first time.
+     * @return The registry.
+     */
+    public static LocatorRegistry get() {
+        return Holder.registry;
+    }
+
+    /**
+     * Loads every .json file in a directory.
+     * @param directory The directory of locator files.
+     * @return The registry.
+     * @throws IllegalStateException If a file cannot be read, or has a duplicate label or an invalid locator.
+     */
+    public static LocatorRegistry load(Path directory) {
+        Map<String, Map<String, ElementInfoStruct>> locatorsByKind = new HashMap<>();
+        Map<String, Path> labelSources = new HashMap<>();
+        List<Path> files;
+        try (Stream<Path> paths = Files.list(directory)) {
+            files = paths.filter(path -> path.toString().endsWith(".json")).sorted().toList();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read the locator directory " + directory, e);
+        }
+        int count = 0;
+        for (Path file : files) {
+            Map<String, Map<String, LocatorEntry>> entries;
+            try {
+                entries = mapper.readValue(file.toFile(), new TypeReference<>() {});
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read the locator file " + file + ": " + e.getMessage(), e);
+            }
+            for (Map.Entry<String, Map<String, LocatorEntry>> kind : entries.entrySet()) {
+                String kindName = normalise(kind.getKey());
+                Map<String, ElementInfoStruct> locators = locatorsByKind.computeIfAbsent(kindName, _ -> new HashMap<>());
+                for (Map.Entry<String, LocatorEntry> entry : kind.getValue().entrySet()) {
+                    String label = normalise(entry.getKey());
+                    Path firstSource = labelSources.putIfAbsent(kindName + "/" + label, file);
+                    if (firstSource != null) {
+                        throw new IllegalStateException("Duplicate " + kind.getKey() + " label '" + entry.getKey() + "' in " + file
+                                + (firstSource.equals(file) ? "" : ", already in " + firstSource));
+                    }
+                    try {
+                        locators.put(label, new ElementInfoStruct(entry.getValue().type(), entry.getValue().value(), entry.getValue().typed()));
+                    } catch (IllegalArgumentException e) {
+                        throw new IllegalStateException("Invalid locator for " + kind.getKey() + " '" + entry.getKey() + "' in " + file + ": " + e.getMessage(), e);
+                    }
+                    count++;
+                }
+            }
+        }
+        log.info("Loaded {} locators from {} files in {}", count, files.size(), directory);
+        return new LocatorRegistry(locatorsByKind);
+    }
+
+    /**
+     * Looks up the locator of an element.
+     * @param kind The kind of element, e.g. "buttons".
+     * @param label The user facing label of the element.
+     * @return The element information.
+     * @throws IllegalStateException If there is no element with the label.
+     */
+    public ElementInfoStruct find(String kind, String label) {
+        ElementInfoStruct locator = locatorsByKind.getOrDefault(normalise(kind), Map.of()).get(normalise(label));
+        if (locator == null) {
+            throw new IllegalStateException("Unexpected value: " + label + ", no " + kind + " has this label in the locator files");
+        }
+        return locator;
+    }
+
+    /**
+     * Normalises a label so it matches however its case and whitespace are written in a feature file.
+     */
+    private static String normalise(String label) {
+        return whitespace.matcher(label.strip()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+}